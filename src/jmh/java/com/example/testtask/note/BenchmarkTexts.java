@@ -0,0 +1,90 @@
+package com.example.testtask.note;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic note texts for benchmarks: words drawn from a generated vocabulary either
+ * uniformly or with a Zipf (s = 1) rank distribution, which is closer to natural language.
+ */
+final class BenchmarkTexts {
+    private static final int VOCABULARY = 50_000;
+
+    private static final String[] ENGLISH = {"a", "e", "i", "o", "u", "th", "st", "re", "an", "er", "ch", "b", "c", "d",
+            "f", "g", "h", "k", "l", "m", "n", "p", "r", "s", "t", "w", "y"};
+    private static final String[] RUSSIAN = {"а", "е", "и", "о", "у", "я", "ы", "ю", "б", "в", "г", "д", "ж", "з", "к",
+            "л", "м", "н", "п", "р", "с", "т", "ф", "х", "ц", "ч", "ш", "щ", "ст", "пр"};
+    private static final String[] MIXED = {"a", "é", "ü", "ß", "ø", "σ", "λ", "Σ", "ж", "ё", "ş", "İ", "中", "文", "字",
+            "𝒜", "𝔅", "x", "k", "m", "n", "t", "r", "ø", "ç"};
+
+    private BenchmarkTexts() {
+    }
+
+    static int parseSize(String size) {
+        if (size.endsWith("MB")) return Integer.parseInt(size.substring(0, size.length() - 2)) << 20;
+        if (size.endsWith("KB")) return Integer.parseInt(size.substring(0, size.length() - 2)) << 10;
+        return Integer.parseInt(size);
+    }
+
+    static String generate(String language, String distribution, int chars) {
+        SplittableRandom random = new SplittableRandom(42);
+        String[] vocabulary = vocabulary(syllables(language), random);
+        double[] cumulative = distribution.equals("zipf") ? zipf(vocabulary.length) : null;
+        StringBuilder text = new StringBuilder(chars + 32);
+        int wordsInLine = 0;
+        while (text.length() < chars) {
+            int rank = cumulative == null ? random.nextInt(vocabulary.length) : sample(cumulative, random.nextDouble());
+            String word = vocabulary[rank];
+            text.append(wordsInLine == 0 ? Character.toUpperCase(word.charAt(0)) + word.substring(1) : word);
+            int r = random.nextInt(100);
+            if (r < 5) text.append(", ");
+            else if (r < 8) text.append(". ");
+            else if (r < 9) text.append(' ').append(random.nextInt(1000)).append(' ');
+            else text.append(' ');
+            if (++wordsInLine == 15) {
+                text.append('\n');
+                wordsInLine = 0;
+            }
+        }
+        text.setLength(chars);
+        return text.toString();
+    }
+
+    private static String[] syllables(String language) {
+        return switch (language) {
+            case "english" -> ENGLISH;
+            case "russian" -> RUSSIAN;
+            case "mixed" -> MIXED;
+            default -> throw new IllegalArgumentException("Unknown language " + language);
+        };
+    }
+
+    private static String[] vocabulary(String[] syllables, SplittableRandom random) {
+        String[] words = new String[VOCABULARY];
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i < words.length; i++) {
+            word.setLength(0);
+            int length = 1 + random.nextInt(5);
+            for (int k = 0; k < length; k++) word.append(syllables[random.nextInt(syllables.length)]);
+            if (random.nextInt(50) == 0) word.append('-').append(syllables[random.nextInt(syllables.length)]);
+            words[i] = word.toString();
+        }
+        return words;
+    }
+
+    private static double[] zipf(int n) {
+        double[] cumulative = new double[n];
+        double sum = 0;
+        for (int rank = 0; rank < n; rank++) {
+            sum += 1.0 / (rank + 1);
+            cumulative[rank] = sum;
+        }
+        for (int rank = 0; rank < n; rank++) cumulative[rank] /= sum;
+        return cumulative;
+    }
+
+    private static int sample(double[] cumulative, double u) {
+        int index = Arrays.binarySearch(cumulative, u);
+        return Math.min(index >= 0 ? index : -index - 1, cumulative.length - 1);
+    }
+}
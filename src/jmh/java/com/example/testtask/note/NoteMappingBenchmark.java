@@ -0,0 +1,70 @@
+package com.example.testtask.note;
+
+import com.example.testtask.note.dto.NoteDto;
+import com.example.testtask.note.model.Note;
+import com.example.testtask.note.model.Tag;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Request/response mapping on the hot path: tag conversion in {@link NoteServiceImpl} and
+ * {@link NoteDto#from}, which replaced the controller's private {@code toDto}.
+ */
+@State(Scope.Benchmark)
+public class NoteMappingBenchmark {
+
+    @Param({"0", "1", "3"})
+    public int tagCount;
+
+    private List<String> tags;
+    private Note note;
+    private List<Note> page;
+
+    @Setup
+    public void setUp() {
+        List<Tag> noteTags = Arrays.asList(Tag.values()).subList(0, tagCount);
+        tags = noteTags.stream().map(t -> t.name().toLowerCase()).toList();
+        note = Note.builder()
+                .id("65f0c0ffee0000000000abcd")
+                .title("Quarterly planning")
+                .createdDate(Instant.parse("2024-03-12T10:15:30Z"))
+                .text(BenchmarkTexts.generate("english", "zipf", 1024))
+                .tags(noteTags)
+                .build();
+        page = new ArrayList<>();
+        for (int i = 0; i < 20; i++) page.add(note);
+    }
+
+    @Benchmark
+    public List<Tag> convertTags() {
+        return NoteServiceImpl.convertTags(tags);
+    }
+
+    @Benchmark
+    public Object convertInvalidTag() {
+        try {
+            return NoteServiceImpl.convertTags(List.of("business", "urgent"));
+        } catch (ResponseStatusException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public NoteDto toDto() {
+        return NoteDto.from(note);
+    }
+
+    @Benchmark
+    public List<NoteDto> toDtoPage() {
+        return page.stream().map(NoteDto::from).toList();
+    }
+}
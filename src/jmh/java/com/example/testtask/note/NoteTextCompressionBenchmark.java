@@ -0,0 +1,51 @@
+package com.example.testtask.note;
+
+import org.bson.types.Binary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Write and read cost of compressed note text. The stored size relative to plain UTF-8 is
+ * printed once per trial.
+ */
+@State(Scope.Benchmark)
+public class NoteTextCompressionBenchmark {
+
+    @Param({"4KB", "64KB", "1MB"})
+    public String size;
+
+    @Param({"english", "russian"})
+    public String language;
+
+    @Param({"1", "6"})
+    public int level;
+
+    private NoteTextCodec codec;
+    private String text;
+    private Object stored;
+
+    @Setup
+    public void setUp() {
+        codec = new NoteTextCodec(true, 0, level);
+        text = BenchmarkTexts.generate(language, "zipf", BenchmarkTexts.parseSize(size));
+        stored = codec.encode(text);
+        int plain = text.getBytes(StandardCharsets.UTF_8).length;
+        int compressed = stored instanceof Binary binary ? binary.length() : plain;
+        System.out.printf("%nstored %d of %d UTF-8 bytes (%.1f%%)%n", compressed, plain, 100.0 * compressed / plain);
+    }
+
+    @Benchmark
+    public Object compress() {
+        return codec.encode(text);
+    }
+
+    @Benchmark
+    public String decompress() {
+        return NoteTextCodec.decode(stored);
+    }
+}
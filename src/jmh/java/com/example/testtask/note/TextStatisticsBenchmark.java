@@ -0,0 +1,41 @@
+package com.example.testtask.note;
+
+import com.example.testtask.note.model.WordCount;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.Map;
+
+@State(Scope.Benchmark)
+public class TextStatisticsBenchmark {
+
+    @Param({"1KB", "64KB", "1MB", "10MB"})
+    public String size;
+
+    @Param({"english", "russian", "mixed"})
+    public String language;
+
+    @Param({"zipf", "uniform"})
+    public String distribution;
+
+    private String text;
+
+    @Setup
+    public void setUp() {
+        text = BenchmarkTexts.generate(language, distribution, BenchmarkTexts.parseSize(size));
+    }
+
+    @Benchmark
+    public Map<String, Integer> wordFrequencies() {
+        return TextStatisticsUtil.wordFrequencies(text);
+    }
+
+    @Benchmark
+    public List<WordCount> wordCounts() {
+        return TextStatisticsUtil.wordCounts(text);
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.testtask.loadtest;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+public class LatencyRecorder {
+    private long[] samples = new long[1024];
+    private int size;
+    private long errors;
+    private long skipped;
+
+    public void record(long nanos) {
+        if (size == samples.length) {
+            samples = Arrays.copyOf(samples, size * 2);
+        }
+        samples[size++] = nanos;
+    }
+
+    public void recordError() {
+        errors++;
+    }
+
+    public void recordSkipped() {
+        skipped++;
+    }
+
+    public int count() {
+        return size;
+    }
+
+    public long errors() {
+        return errors;
+    }
+
+    public long skipped() {
+        return skipped;
+    }
+
+    public double percentileMillis(double percentile) {
+        if (size == 0) return 0;
+        long[] sorted = Arrays.copyOf(samples, size);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * size) - 1;
+        return sorted[Math.max(0, Math.min(size - 1, index))] / 1_000_000.0;
+    }
+
+    public static LatencyRecorder merge(Collection<LatencyRecorder> recorders) {
+        LatencyRecorder merged = new LatencyRecorder();
+        for (LatencyRecorder r : recorders) {
+            for (int i = 0; i < r.size; i++) merged.record(r.samples[i]);
+            merged.errors += r.errors;
+            merged.skipped += r.skipped;
+        }
+        return merged;
+    }
+}
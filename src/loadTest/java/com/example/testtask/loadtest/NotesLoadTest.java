@@ -0,0 +1,323 @@
+package com.example.testtask.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Seeds notes and drives a weighted mix of operations against a running instance. With {@code loadtest.rate}
+ * the clients send requests on a fixed schedule and latency is measured from the scheduled time, so a stalled
+ * server shows up in the percentiles instead of lowering the request rate. Results are printed and written as
+ * JSON for {@code loadTestCompare}.
+ */
+public class NotesLoadTest {
+    private static final String DEFAULT_MIX = "list:3,get:3,search:2,create:2";
+    private static final List<String> OPERATIONS =
+            List.of("list", "get", "search", "stats", "create", "update", "delete");
+    private static final int SEED_BATCH_SIZE = 1000;
+    private static final int VOCABULARY = 20_000;
+    private static final int MEDIAN_WORDS = 40;
+    private static final int MAX_WORDS = 2000;
+    private static final Map<String, Double> TAG_SHARES =
+            Map.of("BUSINESS", 0.5, "PERSONAL", 0.35, "IMPORTANT", 0.15);
+    private static final List<String> TAGS = List.copyOf(TAG_SHARES.keySet());
+
+    private final HttpClient http;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final String baseUrl;
+    private final Map<String, Integer> mix;
+    private final int totalWeight;
+    private final List<String> recorded;
+    private final int hotNotes;
+    private final Queue<String> created = new ConcurrentLinkedQueue<>();
+
+    NotesLoadTest(String baseUrl, Map<String, Integer> mix, int hotNotes) {
+        this.baseUrl = baseUrl;
+        this.mix = mix;
+        this.totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+        this.recorded = new ArrayList<>(mix.keySet());
+        if (mix.containsKey("delete") && !mix.containsKey("create")) recorded.add("create");
+        this.hotNotes = hotNotes;
+        this.http = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = System.getProperty("loadtest.baseUrl", "http://localhost:8080");
+        int clients = Integer.getInteger("loadtest.clients", 200);
+        double rate = Double.parseDouble(System.getProperty("loadtest.rate", "0"));
+        long warmupSeconds = Long.getLong("loadtest.warmupSeconds", 10);
+        long durationSeconds = Long.getLong("loadtest.durationSeconds", 30);
+        int seedNotes = Integer.getInteger("loadtest.seedNotes", 500);
+        String mixSpec = System.getProperty("loadtest.mix", DEFAULT_MIX);
+        Map<String, Integer> mix = parseMix(mixSpec);
+        int hotNotes = Integer.getInteger("loadtest.hotNotes", Integer.MAX_VALUE);
+        File resultsFile = new File(System.getProperty("loadtest.resultsFile", "build/results/loadtest/results.json"));
+
+        NotesLoadTest test = new NotesLoadTest(baseUrl, mix, hotNotes);
+        List<String> ids = test.seed(seedNotes);
+        if (warmupSeconds > 0) {
+            test.run(ids, clients, rate, Duration.ofSeconds(warmupSeconds));
+        }
+        long allocatedBefore = test.allocatedBytes();
+        Map<String, LatencyRecorder> results = test.run(ids, clients, rate, Duration.ofSeconds(durationSeconds));
+        long allocatedAfter = test.allocatedBytes();
+        long requests = results.values().stream().mapToLong(LatencyRecorder::count).sum();
+        double bytesPerRequest = allocatedBefore < 0 || allocatedAfter < 0 || requests == 0
+                ? Double.NaN
+                : (allocatedAfter - allocatedBefore) / (double) requests;
+
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("clients", clients);
+        settings.put("rate", rate);
+        settings.put("durationSeconds", durationSeconds);
+        settings.put("seedNotes", seedNotes);
+        settings.put("mix", mixSpec);
+        settings.put("hotNotes", hotNotes);
+        report(results, settings, durationSeconds, bytesPerRequest);
+        test.write(resultsFile, results, settings, durationSeconds, bytesPerRequest);
+    }
+
+    List<String> seed(int count) throws Exception {
+        List<String> ids = new ArrayList<>(count);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int from = 0; from < count; from += SEED_BATCH_SIZE) {
+            StringBuilder body = new StringBuilder("[");
+            for (int i = from; i < Math.min(count, from + SEED_BATCH_SIZE); i++) {
+                if (i > from) body.append(',');
+                body.append(noteJson(i, random));
+            }
+            body.append(']');
+            HttpResponse<String> response = send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/notes/batch"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                    .build());
+            for (JsonNode item : mapper.readTree(response.body()).get("items")) {
+                if (item.hasNonNull("id")) ids.add(item.get("id").asText());
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Runs {@code clients} concurrent clients until {@code duration} has passed. A {@code rate} above zero is the
+     * total requests per second, split evenly across the clients; zero sends each request as soon as the previous
+     * one returned.
+     */
+    Map<String, LatencyRecorder> run(List<String> ids, int clients, double rate, Duration duration) throws Exception {
+        long start = System.nanoTime();
+        long deadline = start + duration.toNanos();
+        long intervalNanos = rate > 0 ? (long) (1e9 * clients / rate) : 0;
+        List<Future<Map<String, LatencyRecorder>>> futures = new ArrayList<>();
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clients; c++) {
+                long firstSend = start + (intervalNanos * c) / clients;
+                futures.add(pool.submit(() -> client(ids, firstSend, intervalNanos, deadline)));
+            }
+        }
+        Map<String, LatencyRecorder> merged = new LinkedHashMap<>();
+        for (String operation : recorded) {
+            List<LatencyRecorder> perClient = new ArrayList<>();
+            for (Future<Map<String, LatencyRecorder>> f : futures) {
+                perClient.add(f.get().get(operation));
+            }
+            merged.put(operation, LatencyRecorder.merge(perClient));
+        }
+        return merged;
+    }
+
+    private Map<String, LatencyRecorder> client(List<String> ids, long firstSend, long intervalNanos, long deadline) {
+        Map<String, LatencyRecorder> recorders = new LinkedHashMap<>();
+        recorded.forEach(op -> recorders.put(op, new LatencyRecorder()));
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long scheduled = firstSend;
+        while (scheduled < deadline && System.nanoTime() < deadline) {
+            if (intervalNanos > 0) {
+                LockSupport.parkNanos(scheduled - System.nanoTime());
+            } else {
+                scheduled = System.nanoTime();
+            }
+            String operation = pick(random);
+            String deleted = "delete".equals(operation) ? created.poll() : null;
+            if ("delete".equals(operation) && deleted == null) {
+                // only notes created during the run are deleted, so seeded ids stay readable;
+                // send a create instead of idling so the client keeps its pace
+                recorders.get("delete").recordSkipped();
+                operation = "create";
+            }
+            HttpRequest request = switch (operation) {
+                case "list" -> get("/api/notes?size=20&page=" + random.nextInt(5)
+                        + (random.nextInt(3) == 0 ? "&tags=" + tag(random) : ""));
+                case "get" -> get("/api/notes/" + ids.get(random.nextInt(ids.size())));
+                case "search" -> get("/api/notes/search?size=20&q=" + word(random) + "+" + word(random));
+                case "stats" -> get("/api/notes/" + ids.get(random.nextInt(ids.size())) + "/stats?limit=20");
+                case "update" -> update(ids.get(random.nextInt(Math.min(hotNotes, ids.size()))), random.nextInt());
+                case "delete" -> delete(deleted);
+                default -> create(random.nextInt());
+            };
+            LatencyRecorder recorder = recorders.get(operation);
+            try {
+                HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+                recorder.record(System.nanoTime() - scheduled);
+                if (response.statusCode() >= 400) {
+                    recorder.recordError();
+                } else if (request.method().equals("POST")) {
+                    created.add(mapper.readTree(response.body()).get("id").asText());
+                }
+            } catch (Exception e) {
+                recorder.recordError();
+            }
+            scheduled += intervalNanos;
+        }
+        return recorders;
+    }
+
+    private String pick(ThreadLocalRandom random) {
+        int roll = random.nextInt(totalWeight);
+        for (Map.Entry<String, Integer> e : mix.entrySet()) {
+            roll -= e.getValue();
+            if (roll < 0) return e.getKey();
+        }
+        throw new IllegalStateException();
+    }
+
+    static Map<String, Integer> parseMix(String spec) {
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        for (String part : spec.split(",")) {
+            String[] kv = part.trim().split(":");
+            String operation = kv[0].trim();
+            if (!OPERATIONS.contains(operation)) {
+                throw new IllegalArgumentException("Unknown operation in loadtest.mix: " + operation);
+            }
+            mix.put(operation, kv.length > 1 ? Integer.parseInt(kv[1].trim()) : 1);
+        }
+        return mix;
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build();
+    }
+
+    private HttpRequest create(int n) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/api/notes"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(noteJson(n, ThreadLocalRandom.current())))
+                .build();
+    }
+
+    private HttpRequest update(String id, int n) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/api/notes/" + id))
+                .header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofString(noteJson(n, ThreadLocalRandom.current())))
+                .build();
+    }
+
+    private HttpRequest delete(String id) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/api/notes/" + id)).DELETE().build();
+    }
+
+    private static String noteJson(int n, ThreadLocalRandom random) {
+        // log-normal lengths: most notes are short, a few run to thousands of words
+        long words = Math.min(MAX_WORDS, Math.max(1, Math.round(MEDIAN_WORDS * Math.exp(random.nextGaussian()))));
+        StringBuilder text = new StringBuilder();
+        for (int w = 0; w < words; w++) {
+            text.append(word(random)).append(' ');
+        }
+        StringBuilder tags = new StringBuilder();
+        TAG_SHARES.forEach((tag, share) -> {
+            if (random.nextDouble() < share) tags.append(tags.isEmpty() ? "" : ",").append('"').append(tag).append('"');
+        });
+        return "{\"title\":\"Load note " + n + " " + word(random) + "\",\"text\":\"" + text
+                + "\",\"tags\":[" + tags + "]}";
+    }
+
+    private static String tag(ThreadLocalRandom random) {
+        return TAGS.get(random.nextInt(TAGS.size()));
+    }
+
+    // log-uniform ranks give a few very common words and a long tail of rare ones
+    private static String word(ThreadLocalRandom random) {
+        return "w" + (int) Math.pow(VOCABULARY, random.nextDouble());
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws Exception {
+        HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() >= 400) {
+            throw new IllegalStateException(request.uri() + " returned " + response.statusCode());
+        }
+        return response;
+    }
+
+    /**
+     * Bytes the server has allocated so far, from the {@code jvm.gc.memory.allocated} actuator metric, or -1 when
+     * the metrics endpoint is not exposed. The counter only advances at collections, so short runs undercount.
+     */
+    private long allocatedBytes() {
+        try {
+            HttpResponse<String> response = http.send(get("/actuator/metrics/jvm.gc.memory.allocated"),
+                    HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() >= 400) return -1;
+            return mapper.readTree(response.body()).get("measurements").get(0).get("value").asLong();
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    private static void report(Map<String, LatencyRecorder> results, Map<String, Object> settings,
+                               long durationSeconds, double bytesPerRequest) {
+        System.out.println(settings);
+        System.out.printf("%-10s %10s %8s %8s %12s %10s %10s %10s %10s%n",
+                "operation", "requests", "errors", "skipped", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        for (Map.Entry<String, LatencyRecorder> e : results.entrySet()) {
+            LatencyRecorder r = e.getValue();
+            System.out.printf("%-10s %10d %8d %8d %12.1f %10.2f %10.2f %10.2f %10.2f%n",
+                    e.getKey(), r.count(), r.errors(), r.skipped(), r.count() / (double) durationSeconds,
+                    r.percentileMillis(50), r.percentileMillis(99), r.percentileMillis(99.9),
+                    r.percentileMillis(100));
+        }
+        System.out.printf("server allocation: %.0f B/request%n", bytesPerRequest);
+    }
+
+    private void write(File file, Map<String, LatencyRecorder> results, Map<String, Object> settings,
+                       long durationSeconds, double bytesPerRequest) throws Exception {
+        Map<String, Object> operations = new LinkedHashMap<>();
+        results.forEach((operation, r) -> {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("requests", r.count());
+            result.put("errors", r.errors());
+            result.put("skipped", r.skipped());
+            result.put("throughput", r.count() / (double) durationSeconds);
+            result.put("p50", r.percentileMillis(50));
+            result.put("p99", r.percentileMillis(99));
+            result.put("p999", r.percentileMillis(99.9));
+            result.put("max", r.percentileMillis(100));
+            operations.put(operation, result);
+        });
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("settings", settings);
+        json.put("bytesPerRequest", Double.isNaN(bytesPerRequest) ? null : bytesPerRequest);
+        json.put("operations", operations);
+        file.getAbsoluteFile().getParentFile().mkdirs();
+        mapper.writerWithDefaultPrettyPrinter().writeValue(file, json);
+        System.out.println("results written to " + file);
+    }
+}
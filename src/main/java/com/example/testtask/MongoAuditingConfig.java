@@ -0,0 +1,13 @@
+package com.example.testtask;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.config.EnableMongoAuditing;
+import org.springframework.data.mongodb.config.EnableReactiveMongoAuditing;
+
+@Configuration
+@Profile("!memory")
+@EnableMongoAuditing
+@EnableReactiveMongoAuditing
+public class MongoAuditingConfig {
+}
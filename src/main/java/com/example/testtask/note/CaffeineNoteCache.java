@@ -0,0 +1,79 @@
+package com.example.testtask.note;
+
+import com.example.testtask.note.model.Note;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class CaffeineNoteCache implements NoteCache {
+    private static final int STRIPES = 1024;
+
+    private final Cache<String, Note> cache;
+    private final AtomicLongArray evictions = new AtomicLongArray(STRIPES);
+
+    public CaffeineNoteCache(long maxEntries, long maxWeight, Duration ttl, MeterRegistry registry) {
+        int minWeight = (int) Math.max(1, Math.min(Integer.MAX_VALUE, maxWeight / maxEntries));
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher((String id, Note note) -> Math.max(minWeight, weight(note)))
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, cache, "notes");
+    }
+
+    @Override
+    public Note getIfPresent(String id) {
+        return cache.getIfPresent(id);
+    }
+
+    @Override
+    public long stamp(String id) {
+        return evictions.get(stripe(id));
+    }
+
+    @Override
+    public void fill(Note note, long stamp) {
+        // loads run outside the map so a blocking Mongo call does not pin a virtual thread; the stamp rejects
+        // loads that raced an eviction, which is bumped before the entry is invalidated
+        String id = note.getId();
+        cache.asMap().compute(id, (key, cached) ->
+                evictions.get(stripe(id)) != stamp ? cached : newer(note, cached));
+    }
+
+    @Override
+    public void put(Note note) {
+        cache.asMap().compute(note.getId(), (key, cached) -> newer(note, cached));
+    }
+
+    @Override
+    public void evict(String id) {
+        evictions.incrementAndGet(stripe(id));
+        cache.invalidate(id);
+    }
+
+    private static Note newer(Note note, Note cached) {
+        return cached == null || version(note) > version(cached) ? note : cached;
+    }
+
+    private static long version(Note note) {
+        return note.getVersion() == null ? 0 : note.getVersion();
+    }
+
+    private static int stripe(String id) {
+        return id.hashCode() & (STRIPES - 1);
+    }
+
+    private static int weight(Note note) {
+        long length = (long) lengthOf(note.getText()) + lengthOf(note.getTitle());
+        return (int) Math.min(Integer.MAX_VALUE, length);
+    }
+
+    private static int lengthOf(String s) {
+        return s == null ? 0 : s.length();
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.testtask.note;
+
+import com.example.testtask.note.dto.BatchItemResultDto;
+import com.example.testtask.note.dto.BatchResultDto;
+import com.example.testtask.note.dto.BatchUpdateNoteRequest;
+import com.example.testtask.note.dto.CreateNoteRequest;
+import com.example.testtask.note.dto.ImportResultDto;
+import com.example.testtask.note.dto.UpdateNoteRequest;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.micrometer.core.annotation.Timed;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * {@link NoteBatchService} of the {@code memory} profile. Items are applied one by one through
+ * the in-memory {@link NoteService}; there are no round trips to save by chunking.
+ */
+@Service
+@Profile("memory")
+@Timed("notes.service")
+public class InMemoryNoteBatchService implements NoteBatchService {
+    private final NoteService notes;
+    private final Validator validator;
+    private final ObjectReader importReader;
+    private final int maxItems;
+    private final int importMaxLineLength;
+    private final int maxReportedErrors;
+
+    @Autowired
+    public InMemoryNoteBatchService(NoteService notes, Validator validator, ObjectMapper objectMapper,
+                                    @Value("${notes.batch.max-items:10000}") int maxItems,
+                                    @Value("${notes.import.max-line-length:10485760}") int importMaxLineLength,
+                                    @Value("${notes.import.max-reported-errors:100}") int maxReportedErrors) {
+        this.notes = notes;
+        this.validator = validator;
+        this.importReader = NdjsonLines.reader(objectMapper, CreateNoteRequest.class, importMaxLineLength);
+        this.maxItems = maxItems;
+        this.importMaxLineLength = importMaxLineLength;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    @Override
+    public BatchResultDto createAll(List<CreateNoteRequest> requests) {
+        checkBatchSize(requests.size());
+        BatchItemResultDto[] results = new BatchItemResultDto[requests.size()];
+        for (int i = 0; i < requests.size(); i++) {
+            CreateNoteRequest req = requests.get(i);
+            String error = validate(req);
+            if (error == null) {
+                try {
+                    results[i] = new BatchItemResultDto(i, notes.create(req).getId(), HttpStatus.OK.value(), null);
+                    continue;
+                } catch (ResponseStatusException e) {
+                    error = e.getReason();
+                }
+            }
+            results[i] = new BatchItemResultDto(i, null, HttpStatus.BAD_REQUEST.value(), error);
+        }
+        return NoteBatchServiceImpl.summarize(results);
+    }
+
+    @Override
+    public BatchResultDto updateAll(List<BatchUpdateNoteRequest> requests) {
+        checkBatchSize(requests.size());
+        BatchItemResultDto[] results = new BatchItemResultDto[requests.size()];
+        for (int i = 0; i < requests.size(); i++) {
+            BatchUpdateNoteRequest req = requests.get(i);
+            String id = req == null ? null : req.id();
+            String error = validate(req);
+            if (error != null) {
+                results[i] = new BatchItemResultDto(i, id, HttpStatus.BAD_REQUEST.value(), error);
+                continue;
+            }
+            try {
+                notes.update(id, new UpdateNoteRequest(req.title(), req.text(), req.tags()));
+                results[i] = new BatchItemResultDto(i, id, HttpStatus.OK.value(), null);
+            } catch (ResponseStatusException e) {
+                results[i] = new BatchItemResultDto(i, id, e.getStatusCode().value(), e.getReason());
+            }
+        }
+        return NoteBatchServiceImpl.summarize(results);
+    }
+
+    @Override
+    public BatchResultDto deleteAll(List<String> ids) {
+        checkBatchSize(ids.size());
+        BatchItemResultDto[] results = new BatchItemResultDto[ids.size()];
+        for (int i = 0; i < ids.size(); i++) {
+            String id = ids.get(i);
+            if (id == null || id.isBlank()) {
+                results[i] = new BatchItemResultDto(i, id, HttpStatus.BAD_REQUEST.value(), "id: must not be blank");
+                continue;
+            }
+            try {
+                notes.delete(id);
+                results[i] = new BatchItemResultDto(i, id, HttpStatus.NO_CONTENT.value(), null);
+            } catch (ResponseStatusException e) {
+                results[i] = new BatchItemResultDto(i, id, e.getStatusCode().value(), e.getReason());
+            }
+        }
+        return NoteBatchServiceImpl.summarize(results);
+    }
+
+    @Override
+    public ImportResultDto importNotes(InputStream ndjson) throws IOException {
+        NoteBatchServiceImpl.ImportProgress progress = new NoteBatchServiceImpl.ImportProgress(maxReportedErrors);
+        NdjsonLines lines = new NdjsonLines(ndjson, importMaxLineLength);
+        String line;
+        while ((line = lines.next()) != null) {
+            long lineNumber = lines.number();
+            if (lines.tooLong()) {
+                progress.reject(lineNumber, NoteBatchServiceImpl.tooLong(lines));
+                continue;
+            }
+            if (line.isBlank()) continue;
+            try {
+                CreateNoteRequest req = importReader.readValue(line);
+                String error = validate(req);
+                if (error != null) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, error);
+                }
+                notes.create(req);
+                progress.accept();
+            } catch (JsonProcessingException e) {
+                progress.reject(lineNumber, "Malformed JSON: " + e.getOriginalMessage());
+            } catch (ResponseStatusException e) {
+                progress.reject(lineNumber, e.getReason());
+            }
+        }
+        return progress.toResult();
+    }
+
+    private String validate(Object req) {
+        if (req == null) return "Item must not be null";
+        Set<ConstraintViolation<Object>> violations = validator.validate(req);
+        if (violations.isEmpty()) return null;
+        return violations.stream()
+                .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+
+    private void checkBatchSize(int size) {
+        if (size > maxItems) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Batch too large: " + size + " items, at most " + maxItems + " are allowed.");
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.testtask.note;
+
+import com.example.testtask.note.dto.CreateNoteRequest;
+import com.example.testtask.note.dto.NoteListItemDto;
+import com.example.testtask.note.dto.NoteSearchResultDto;
+import com.example.testtask.note.dto.NoteVersion;
+import com.example.testtask.note.dto.UpdateNoteRequest;
+import com.example.testtask.note.model.Note;
+import com.example.testtask.note.model.Tag;
+import com.example.testtask.note.model.WordCount;
+import io.micrometer.core.annotation.Timed;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * {@link NoteService} of the {@code memory} profile, backed by {@link InMemoryNoteStore} instead of Mongo.
+ * Versions, error statuses, ordering and ranking match {@link NoteServiceImpl}; listings are always newest first.
+ */
+@Service
+@Profile("memory")
+@Timed("notes.service")
+public class InMemoryNoteService implements NoteService {
+    private final InMemoryNoteStore store;
+    private final NoteMetrics metrics;
+    private final NoteEvents events;
+    private final int searchMaxTerms;
+    private final int aggregatesMaxDays;
+    private static final String NOTE_NOT_FOUND = "Note not found";
+
+    @Autowired
+    public InMemoryNoteService(InMemoryNoteStore store, NoteMetrics metrics, NoteEvents events,
+                               @Value("${notes.search.max-terms:10}") int searchMaxTerms,
+                               @Value("${notes.aggregates.max-days:366}") int aggregatesMaxDays) {
+        this.store = store;
+        this.metrics = metrics;
+        this.events = events;
+        this.searchMaxTerms = searchMaxTerms;
+        this.aggregatesMaxDays = aggregatesMaxDays;
+    }
+
+    @Override
+    public Note create(CreateNoteRequest req) {
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        Note note = Note.builder()
+                .id(new ObjectId().toHexString())
+                .title(req.title())
+                .createdDate(now)
+                .text(req.text())
+                .tags(NoteServiceImpl.convertTags(req.tags()))
+                .version(0L)
+                .lastModifiedDate(now)
+                .build();
+        metrics.statsComputed(note.getText());
+        store.put(note);
+        events.created(note);
+        return note;
+    }
+
+    @Override
+    public Note update(String id, UpdateNoteRequest req) {
+        return update(id, req, null);
+    }
+
+    @Override
+    public Note update(String id, UpdateNoteRequest req, Long expectedVersion) {
+        List<Tag> tags = NoteServiceImpl.convertTags(req.tags());
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        metrics.statsComputed(req.text());
+        Note saved = store.update(id, expectedVersion,
+                current -> NoteServiceImpl.modified(current, req.title(), req.text(), tags, now));
+        events.updated(saved);
+        return saved;
+    }
+
+    @Override
+    public void delete(String id) {
+        Note deleted = store.remove(id);
+        if (deleted == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, NOTE_NOT_FOUND);
+        }
+        events.deleted(deleted);
+    }
+
+    @Override
+    public Note get(String id) {
+        Note note = store.get(id);
+        if (note == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, NOTE_NOT_FOUND);
+        }
+        return note;
+    }
+
+    @Override
+    public NoteVersion version(String id) {
+        return NoteVersion.of(get(id));
+    }
+
+    @Override
+    public Page<NoteListItemDto> list(TagFilter tags, Pageable pageable) {
+        metrics.listed(pageable.getPageSize());
+        List<NoteListItemDto> content = store.list(tags, null)
+                .skip(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .map(InMemoryNoteService::listItem)
+                .toList();
+        return new PageImpl<>(content, pageable, store.count(tags));
+    }
+
+    @Override
+    public Slice<NoteListItemDto> listAfter(TagFilter tags, NoteCursor cursor, int size) {
+        if (size < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Page size must be >= 1.");
+        }
+        metrics.listedAfter(size);
+        List<NoteListItemDto> notes = store.list(tags, cursor)
+                .limit(size + 1L)
+                .map(InMemoryNoteService::listItem)
+                .toList();
+        boolean hasNext = notes.size() > size;
+        List<NoteListItemDto> content = hasNext ? notes.subList(0, size) : notes;
+        return new SliceImpl<>(content, PageRequest.of(0, size), hasNext);
+    }
+
+    @Override
+    public Stream<Note> export(TagFilter tags) {
+        return store.list(tags, null);
+    }
+
+    @Override
+    public Page<NoteSearchResultDto> search(String query, TagFilter tags, Pageable pageable) {
+        metrics.searched(pageable.getPageSize());
+        List<String> terms = NoteSearchIndex.queryTerms(query, searchMaxTerms);
+        List<NoteSearchResultDto> results = store.search(terms, tags);
+        int from = (int) Math.min(pageable.getOffset(), results.size());
+        int to = Math.min(from + pageable.getPageSize(), results.size());
+        return new PageImpl<>(results.subList(from, to), pageable, results.size());
+    }
+
+    @Override
+    public Map<String, Long> tagCounts() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        store.tagCounts().forEach((tag, count) -> result.put(tag.name(), count));
+        return result;
+    }
+
+    @Override
+    public Map<String, Integer> stats(String id) {
+        return stats(id, 0, 1);
+    }
+
+    @Override
+    public Map<String, Integer> stats(String id, int limit, int minCount) {
+        NoteServiceImpl.checkStatsParams(limit, minCount);
+        List<WordCount> words = words(id);
+        if (limit > 0 && words.size() > limit) {
+            words = words.subList(0, limit);
+        }
+        return TextStatisticsUtil.toFrequencyMap(words, minCount);
+    }
+
+    @Override
+    public Stream<WordCount> streamStats(String id, int limit, int minCount) {
+        NoteServiceImpl.checkStatsParams(limit, minCount);
+        return words(id).stream()
+                .filter(word -> word.count() >= minCount)
+                .limit(limit > 0 ? limit : Long.MAX_VALUE);
+    }
+
+    @Override
+    public Map<String, Long> aggregateStats(String tag, LocalDate from, LocalDate to, int limit, int minCount) {
+        NoteServiceImpl.checkStatsParams(limit, minCount);
+        WordCountBuckets.Range range = WordCountBuckets.range(from, to, aggregatesMaxDays);
+        return store.wordTotals(WordCountBuckets.bucketTag(tag), range).top(limit, minCount);
+    }
+
+    private List<WordCount> words(String id) {
+        List<WordCount> words = store.words(id);
+        if (words == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, NOTE_NOT_FOUND);
+        }
+        return words;
+    }
+
+    private static NoteListItemDto listItem(Note note) {
+        return new NoteListItemDto(note.getId(), note.getTitle(), note.getCreatedDate());
+    }
+}
@@ -0,0 +1,347 @@
+package com.example.testtask.note;
+
+import com.example.testtask.note.dto.NoteSearchResultDto;
+import com.example.testtask.note.dto.NoteVersion;
+import com.example.testtask.note.model.Note;
+import com.example.testtask.note.model.NoteSearchEntry;
+import com.example.testtask.note.model.SearchTerm;
+import com.example.testtask.note.model.Tag;
+import com.example.testtask.note.model.WordCount;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Notes of the {@code memory} profile held in concurrent maps. Listings walk one skip list per tag bitmask,
+ * ordered like the Mongo {@code tags_createdDate_id} index, and merge the lists a {@link TagFilter} accepts;
+ * an inverted index and per-day word counts mirror {@code note_search} and {@code word_counts}. Reads
+ * never lock. Writes are serialized so every index moves together, and with {@code notes.memory.data-dir} set
+ * they reach the {@link NoteJournal} before the maps.
+ */
+@Component
+@Profile("memory")
+public class InMemoryNoteStore {
+    private static final Comparator<Key> NEWEST_FIRST =
+            Comparator.comparing(Key::createdDate).thenComparing(Key::id).reversed();
+
+    private final Map<String, Stored> notes = new ConcurrentHashMap<>();
+    private final List<NavigableSet<Key>> byMask = new ArrayList<>(NoteTagCodec.MASKS);
+    private final AtomicLongArray maskCounts = new AtomicLongArray(NoteTagCodec.MASKS);
+    private final Map<String, Map<String, Integer>> postings = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Long>> wordBuckets = new ConcurrentHashMap<>();
+    private final Object writeLock = new Object();
+    private final NoteJournal journal;
+    private final int compactAfter;
+
+    @Autowired
+    public InMemoryNoteStore(ObjectMapper objectMapper,
+                             @Value("${notes.memory.data-dir:}") String dataDir,
+                             @Value("${notes.memory.fsync:false}") boolean fsync,
+                             @Value("${notes.memory.compact-after:10000}") int compactAfter) throws IOException {
+        for (int mask = 0; mask < NoteTagCodec.MASKS; mask++) {
+            byMask.add(new ConcurrentSkipListSet<>(NEWEST_FIRST));
+        }
+        this.compactAfter = compactAfter;
+        if (dataDir == null || dataDir.isBlank()) {
+            this.journal = null;
+            return;
+        }
+        this.journal = new NoteJournal(Path.of(dataDir), objectMapper, fsync);
+        journal.replay(note -> write(notes.get(note.getId()), stored(note)),
+                id -> write(notes.get(id), null));
+        journal.compact(allNotes());
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (journal != null) {
+            synchronized (writeLock) {
+                journal.close();
+            }
+        }
+    }
+
+    public Note get(String id) {
+        Stored stored = notes.get(id);
+        return stored == null ? null : stored.note();
+    }
+
+    public List<WordCount> words(String id) {
+        Stored stored = notes.get(id);
+        return stored == null ? null : stored.words();
+    }
+
+    public void put(Note note) {
+        Stored stored = stored(note);
+        synchronized (writeLock) {
+            journal(note, null);
+            write(notes.get(note.getId()), stored);
+            compactIfDue();
+        }
+    }
+
+    /**
+     * Replaces a note with {@code change} applied to its current state; the change runs outside the write lock
+     * and is retried if another write got in first.
+     */
+    public Note update(String id, Long expectedVersion, UnaryOperator<Note> change) {
+        while (true) {
+            Stored current = notes.get(id);
+            if (current == null) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Note not found");
+            }
+            if (expectedVersion != null && expectedVersion != NoteVersion.of(current.note()).version()) {
+                throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, NoteServiceImpl.NOTE_MODIFIED);
+            }
+            Stored next = stored(change.apply(current.note()));
+            synchronized (writeLock) {
+                if (notes.get(id) == current) {
+                    journal(next.note(), null);
+                    write(current, next);
+                    compactIfDue();
+                    return next.note();
+                }
+            }
+        }
+    }
+
+    public Note remove(String id) {
+        synchronized (writeLock) {
+            Stored current = notes.get(id);
+            if (current == null) return null;
+            journal(null, id);
+            write(current, null);
+            compactIfDue();
+            return current.note();
+        }
+    }
+
+    public long count(TagFilter filter) {
+        long count = 0;
+        for (int mask : masks(filter)) {
+            count += maskCounts.get(mask);
+        }
+        return count;
+    }
+
+    public Map<Tag, Long> tagCounts() {
+        Map<Tag, Long> counts = new EnumMap<>(Tag.class);
+        for (Tag tag : Tag.values()) {
+            counts.put(tag, count(new TagFilter(NoteTagCodec.bit(tag), false)));
+        }
+        return counts;
+    }
+
+    /**
+     * Notes accepted by {@code filter}, newest first, starting after {@code cursor} when one is given.
+     */
+    public Stream<Note> list(TagFilter filter, NoteCursor cursor) {
+        List<Iterator<Key>> sources = new ArrayList<>();
+        for (int mask : masks(filter)) {
+            NavigableSet<Key> keys = byMask.get(mask);
+            if (cursor != null) keys = keys.tailSet(new Key(cursor.createdDate(), cursor.id()), false);
+            sources.add(keys.iterator());
+        }
+        Iterator<Key> merged = new MergedKeys(sources);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(merged, Spliterator.ORDERED), false)
+                .map(key -> notes.get(key.id()))
+                .filter(stored -> stored != null && filter.accepts(stored.mask()))
+                .map(Stored::note);
+    }
+
+    /**
+     * Every note containing all {@code terms} and accepted by {@code filter}, ranked like
+     * {@link NoteSearchIndex#rankedPage}.
+     */
+    public List<NoteSearchResultDto> search(List<String> terms, TagFilter filter) {
+        long total = notes.size();
+        Map<String, Double> idf = new HashMap<>();
+        Map<String, Integer> rarest = null;
+        for (String term : terms) {
+            Map<String, Integer> posting = postings.get(term);
+            if (posting == null || posting.isEmpty()) return List.of();
+            idf.put(term, NoteSearchIndex.idf(total, posting.size()));
+            if (rarest == null || posting.size() < rarest.size()) rarest = posting;
+        }
+        List<NoteSearchResultDto> results = new ArrayList<>();
+        for (String id : rarest.keySet()) {
+            Stored stored = notes.get(id);
+            if (stored == null || !filter.accepts(stored.mask())) continue;
+            double score = 0;
+            for (String term : terms) {
+                Integer weight = postings.getOrDefault(term, Map.of()).get(id);
+                if (weight == null) {
+                    score = -1;
+                    break;
+                }
+                score += idf.get(term) * NoteSearchIndex.saturated(weight);
+            }
+            if (score < 0) continue;
+            Note note = stored.note();
+            results.add(new NoteSearchResultDto(note.getId(), note.getTitle(), note.getCreatedDate(),
+                    note.getTags().stream().map(Tag::name).toList(), score));
+        }
+        results.sort(Comparator.comparingDouble(NoteSearchResultDto::score)
+                .thenComparing(NoteSearchResultDto::createdDate)
+                .thenComparing(NoteSearchResultDto::id)
+                .reversed());
+        return results;
+    }
+
+    public WordCountBuckets.Totals wordTotals(String bucketTag, WordCountBuckets.Range range) {
+        WordCountBuckets.Totals totals = new WordCountBuckets.Totals();
+        for (LocalDate day = range.from(); !day.isAfter(range.to()); day = day.plusDays(1)) {
+            totals.add(wordBuckets.get(day + "/" + bucketTag));
+        }
+        return totals;
+    }
+
+    private List<Note> allNotes() {
+        return notes.values().stream().map(Stored::note).toList();
+    }
+
+    private void journal(Note put, String deleted) {
+        if (journal == null) return;
+        try {
+            if (put != null) {
+                journal.put(put);
+            } else {
+                journal.delete(deleted);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void compactIfDue() {
+        if (journal == null || journal.entries() < compactAfter) return;
+        try {
+            journal.compact(allNotes());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void write(Stored previous, Stored next) {
+        if (previous != null) unindex(previous);
+        if (next != null) {
+            notes.put(next.note().getId(), next);
+            index(next);
+        } else if (previous != null) {
+            notes.remove(previous.note().getId());
+        }
+    }
+
+    private void index(Stored stored) {
+        Note note = stored.note();
+        byMask.get(stored.mask()).add(new Key(note.getCreatedDate(), note.getId()));
+        maskCounts.incrementAndGet(stored.mask());
+        for (SearchTerm term : stored.terms()) {
+            postings.computeIfAbsent(term.term(), t -> new ConcurrentHashMap<>()).put(note.getId(), term.weight());
+        }
+        countWords(stored, 1);
+    }
+
+    private void unindex(Stored stored) {
+        Note note = stored.note();
+        byMask.get(stored.mask()).remove(new Key(note.getCreatedDate(), note.getId()));
+        maskCounts.decrementAndGet(stored.mask());
+        for (SearchTerm term : stored.terms()) {
+            postings.computeIfPresent(term.term(), (t, posting) -> {
+                posting.remove(note.getId());
+                return posting.isEmpty() ? null : posting;
+            });
+        }
+        countWords(stored, -1);
+    }
+
+    private void countWords(Stored stored, int sign) {
+        String day = WordCountBuckets.day(stored.note().getCreatedDate());
+        List<String> tags = new ArrayList<>();
+        tags.add(WordCountBuckets.ALL);
+        stored.note().getTags().forEach(tag -> tags.add(tag.name()));
+        for (String tag : tags) {
+            Map<String, Long> bucket = wordBuckets.computeIfAbsent(day + "/" + tag, k -> new ConcurrentHashMap<>());
+            for (WordCount word : stored.words()) {
+                bucket.compute(word.word(), (w, count) -> {
+                    long updated = (count == null ? 0 : count) + (long) sign * word.count();
+                    return updated == 0 ? null : updated;
+                });
+            }
+        }
+    }
+
+    private static Stored stored(Note note) {
+        List<Tag> tags = note.getTags() == null ? List.of() : note.getTags();
+        Note normalized = Objects.equals(tags, note.getTags()) ? note : note.toBuilder().tags(tags).build();
+        List<WordCount> words = TextStatisticsUtil.wordCounts(normalized.getText());
+        NoteSearchEntry entry = NoteSearchIndex.entry(normalized, words);
+        return new Stored(normalized, words, entry.getTerms(), NoteTagCodec.mask(tags));
+    }
+
+    private static List<Integer> masks(TagFilter filter) {
+        return filter.isEmpty() ? NoteTagCodec.matching(0, true) : filter.masks();
+    }
+
+    private record Stored(Note note, List<WordCount> words, List<SearchTerm> terms, int mask) {
+    }
+
+    private record Key(Instant createdDate, String id) {
+    }
+
+    private static final class MergedKeys implements Iterator<Key> {
+        private final PriorityQueue<Head> heads = new PriorityQueue<>(Comparator.comparing(Head::key, NEWEST_FIRST));
+
+        MergedKeys(List<Iterator<Key>> sources) {
+            for (Iterator<Key> source : sources) {
+                if (source.hasNext()) heads.add(new Head(source.next(), source));
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !heads.isEmpty();
+        }
+
+        @Override
+        public Key next() {
+            Head head = heads.poll();
+            if (head == null) throw new NoSuchElementException();
+            if (head.rest().hasNext()) heads.add(new Head(head.rest().next(), head.rest()));
+            return head.key();
+        }
+
+        private record Head(Key key, Iterator<Key> rest) {
+        }
+    }
+}
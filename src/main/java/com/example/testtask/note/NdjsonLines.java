@@ -0,0 +1,94 @@
+package com.example.testtask.note;
+
+import com.fasterxml.jackson.core.StreamReadConstraints;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Splits an NDJSON body into lines while holding at most one line of {@code maxLength} characters. The rest of
+ * a longer line is read and dropped without buffering; {@link #tooLong()} reports it so the line can be rejected.
+ */
+final class NdjsonLines {
+    private static final int MAX_NESTING_DEPTH = 16;
+
+    private final Reader in;
+    private final int maxLength;
+    private final char[] buffer = new char[8192];
+    private final StringBuilder line = new StringBuilder();
+    private int position;
+    private int limit;
+    private long number;
+    private boolean tooLong;
+
+    NdjsonLines(InputStream body, int maxLength) {
+        this.in = new InputStreamReader(body, StandardCharsets.UTF_8);
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * A reader for one line whose parser enforces the same length limit on strings and a small nesting depth.
+     */
+    static ObjectReader reader(ObjectMapper objectMapper, Class<?> type, int maxLength) {
+        ObjectMapper constrained = objectMapper.copy();
+        constrained.getFactory().setStreamReadConstraints(StreamReadConstraints.builder()
+                .maxStringLength(maxLength)
+                .maxNestingDepth(MAX_NESTING_DEPTH)
+                .build());
+        return constrained.readerFor(type);
+    }
+
+    /**
+     * The next line without its line terminator, empty when it was too long, or null at the end of the body.
+     */
+    String next() throws IOException {
+        line.setLength(0);
+        tooLong = false;
+        boolean read = false;
+        while (true) {
+            if (position == limit) {
+                limit = Math.max(0, in.read(buffer, 0, buffer.length));
+                position = 0;
+                if (limit == 0) {
+                    return read ? complete() : null;
+                }
+            }
+            read = true;
+            int start = position;
+            while (position < limit && buffer[position] != '\n') position++;
+            if (!tooLong && line.length() + position - start > maxLength) {
+                tooLong = true;
+                line.setLength(0);
+            }
+            if (!tooLong) line.append(buffer, start, position - start);
+            if (position < limit) {
+                position++;
+                return complete();
+            }
+        }
+    }
+
+    long number() {
+        return number;
+    }
+
+    boolean tooLong() {
+        return tooLong;
+    }
+
+    int maxLength() {
+        return maxLength;
+    }
+
+    private String complete() {
+        number++;
+        int length = line.length();
+        if (length > 0 && line.charAt(length - 1) == '\r') line.setLength(length - 1);
+        return line.toString();
+    }
+}
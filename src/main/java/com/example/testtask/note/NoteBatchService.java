@@ -0,0 +1,17 @@
+package com.example.testtask.note;
+
+import com.example.testtask.note.dto.BatchResultDto;
+import com.example.testtask.note.dto.BatchUpdateNoteRequest;
+import com.example.testtask.note.dto.CreateNoteRequest;
+import com.example.testtask.note.dto.ImportResultDto;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+public interface NoteBatchService {
+    BatchResultDto createAll(List<CreateNoteRequest> requests);
+    BatchResultDto updateAll(List<BatchUpdateNoteRequest> requests);
+    BatchResultDto deleteAll(List<String> ids);
+    ImportResultDto importNotes(InputStream ndjson) throws IOException;
+}
@@ -0,0 +1,529 @@
+package com.example.testtask.note;
+
+import com.example.testtask.note.dto.BatchItemResultDto;
+import com.example.testtask.note.dto.BatchResultDto;
+import com.example.testtask.note.dto.BatchUpdateNoteRequest;
+import com.example.testtask.note.dto.CreateNoteRequest;
+import com.example.testtask.note.dto.ImportErrorDto;
+import com.example.testtask.note.dto.ImportResultDto;
+import com.example.testtask.note.model.Note;
+import com.example.testtask.note.model.NoteSearchEntry;
+import com.example.testtask.note.model.NoteStats;
+import com.example.testtask.note.model.Tag;
+import com.example.testtask.note.model.TagCount;
+import com.example.testtask.note.model.WordCounter;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.bson.types.ObjectId;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.Pair;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+@Profile("!memory")
+@Timed("notes.service")
+public class NoteBatchServiceImpl implements NoteBatchService {
+    private final MongoTemplate mongoTemplate;
+    private final Validator validator;
+    private final NoteCache cache;
+    private final NoteMetrics metrics;
+    private final NoteEvents events;
+    private final ObjectReader importReader;
+    private final int chunkSize;
+    private final int maxItems;
+    private final int importBatchSize;
+    private final int importWriters;
+    private final int importMaxLineLength;
+    private final int maxReportedErrors;
+    private final boolean virtualThreads;
+    private static final String NOTE_NOT_FOUND = "Note not found";
+    private static final int DUPLICATE_KEY = 11000;
+
+    @Autowired
+    public NoteBatchServiceImpl(MongoTemplate mongoTemplate, Validator validator, NoteCache cache,
+                                NoteMetrics metrics, NoteEvents events, ObjectMapper objectMapper,
+                                @Value("${notes.batch.chunk-size:1000}") int chunkSize,
+                                @Value("${notes.batch.max-items:10000}") int maxItems,
+                                @Value("${notes.import.batch-size:500}") int importBatchSize,
+                                @Value("${notes.import.writers:4}") int importWriters,
+                                @Value("${notes.import.max-line-length:10485760}") int importMaxLineLength,
+                                @Value("${notes.import.max-reported-errors:100}") int maxReportedErrors,
+                                @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.mongoTemplate = mongoTemplate;
+        this.validator = validator;
+        this.cache = cache;
+        this.metrics = metrics;
+        this.events = events;
+        this.importReader = NdjsonLines.reader(objectMapper, CreateNoteRequest.class, importMaxLineLength);
+        this.chunkSize = chunkSize;
+        this.maxItems = maxItems;
+        this.importBatchSize = importBatchSize;
+        this.importWriters = importWriters;
+        this.importMaxLineLength = importMaxLineLength;
+        this.maxReportedErrors = maxReportedErrors;
+        this.virtualThreads = virtualThreads;
+    }
+
+    @Override
+    public BatchResultDto createAll(List<CreateNoteRequest> requests) {
+        checkBatchSize(requests.size());
+        BatchItemResultDto[] results = new BatchItemResultDto[requests.size()];
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        List<Note> chunk = new ArrayList<>();
+        List<Integer> indexes = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            try {
+                chunk.add(newNote(requests.get(i), now));
+                indexes.add(i);
+            } catch (ResponseStatusException e) {
+                results[i] = new BatchItemResultDto(i, null, HttpStatus.BAD_REQUEST.value(), e.getReason());
+            }
+            if (chunk.size() == chunkSize) {
+                insertChunk(chunk, indexes, results);
+                chunk.clear();
+                indexes.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            insertChunk(chunk, indexes, results);
+        }
+        return summarize(results);
+    }
+
+    @Override
+    public BatchResultDto updateAll(List<BatchUpdateNoteRequest> requests) {
+        checkBatchSize(requests.size());
+        BatchItemResultDto[] results = new BatchItemResultDto[requests.size()];
+        Map<Integer, List<Tag>> chunk = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            BatchUpdateNoteRequest req = requests.get(i);
+            String error = validate(req);
+            List<Tag> tags = List.of();
+            if (error == null) {
+                try {
+                    tags = NoteServiceImpl.convertTags(req.tags());
+                } catch (ResponseStatusException e) {
+                    error = e.getReason();
+                }
+            }
+            if (error != null) {
+                String id = req == null ? null : req.id();
+                results[i] = new BatchItemResultDto(i, id, HttpStatus.BAD_REQUEST.value(), error);
+                continue;
+            }
+            chunk.put(i, tags);
+            if (chunk.size() == chunkSize) {
+                updateChunk(requests, chunk, results);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            updateChunk(requests, chunk, results);
+        }
+        return summarize(results);
+    }
+
+    @Override
+    public BatchResultDto deleteAll(List<String> ids) {
+        checkBatchSize(ids.size());
+        BatchItemResultDto[] results = new BatchItemResultDto[ids.size()];
+        List<Integer> chunk = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            String id = ids.get(i);
+            if (id == null || id.isBlank()) {
+                results[i] = new BatchItemResultDto(i, id, HttpStatus.BAD_REQUEST.value(), "id: must not be blank");
+                continue;
+            }
+            chunk.add(i);
+            if (chunk.size() == chunkSize) {
+                deleteChunk(ids, chunk, results);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            deleteChunk(ids, chunk, results);
+        }
+        return summarize(results);
+    }
+
+    @Override
+    public ImportResultDto importNotes(InputStream ndjson) throws IOException {
+        ImportProgress progress = new ImportProgress(maxReportedErrors);
+        Semaphore inFlight = new Semaphore(importWriters);
+        NdjsonLines lines = new NdjsonLines(ndjson, importMaxLineLength);
+        try (ExecutorService writers = virtualThreads
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(importWriters)) {
+            List<Note> batch = new ArrayList<>(importBatchSize);
+            List<Long> batchLines = new ArrayList<>(importBatchSize);
+            String line;
+            while ((line = lines.next()) != null) {
+                long lineNumber = lines.number();
+                if (lines.tooLong()) {
+                    progress.reject(lineNumber, tooLong(lines));
+                    continue;
+                }
+                if (line.isBlank()) continue;
+                try {
+                    CreateNoteRequest req = importReader.readValue(line);
+                    batch.add(newNote(req, Instant.now().truncatedTo(ChronoUnit.MILLIS)));
+                    batchLines.add(lineNumber);
+                } catch (JsonProcessingException e) {
+                    progress.reject(lineNumber, "Malformed JSON: " + e.getOriginalMessage());
+                } catch (ResponseStatusException e) {
+                    progress.reject(lineNumber, e.getReason());
+                }
+                if (batch.size() == importBatchSize) {
+                    submit(writers, inFlight, batch, batchLines, progress);
+                    batch = new ArrayList<>(importBatchSize);
+                    batchLines = new ArrayList<>(importBatchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                submit(writers, inFlight, batch, batchLines, progress);
+            }
+        }
+        return progress.toResult();
+    }
+
+    static String tooLong(NdjsonLines lines) {
+        return "Line exceeds " + lines.maxLength() + " characters.";
+    }
+
+    private void submit(ExecutorService writers, Semaphore inFlight, List<Note> batch, List<Long> lines,
+                        ImportProgress progress) {
+        inFlight.acquireUninterruptibly();
+        try {
+            writers.execute(() -> {
+                try {
+                    Map<Integer, String> errors = insertNotes(batch);
+                    for (int k = 0; k < batch.size(); k++) {
+                        String error = errors.get(k);
+                        if (error == null) {
+                            progress.accept();
+                        } else {
+                            progress.reject(lines.get(k), error);
+                        }
+                    }
+                } catch (RuntimeException e) {
+                    lines.forEach(line -> progress.reject(line, e.getMessage()));
+                } finally {
+                    inFlight.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.release();
+            throw e;
+        }
+    }
+
+    private Note newNote(CreateNoteRequest req, Instant createdDate) {
+        String error = validate(req);
+        if (error != null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, error);
+        }
+        return Note.builder()
+                .id(new ObjectId().toHexString())
+                .title(req.title())
+                .createdDate(createdDate)
+                .text(req.text())
+                .tags(NoteServiceImpl.convertTags(req.tags()))
+                .version(0L)
+                .lastModifiedDate(createdDate)
+                .build();
+    }
+
+    private void insertChunk(List<Note> notes, List<Integer> indexes, BatchItemResultDto[] results) {
+        Map<Integer, String> errors = insertNotes(notes);
+        for (int k = 0; k < notes.size(); k++) {
+            int index = indexes.get(k);
+            String id = notes.get(k).getId();
+            String error = errors.get(k);
+            if (error != null) {
+                results[index] = new BatchItemResultDto(index, id, HttpStatus.CONFLICT.value(), error);
+            } else {
+                results[index] = new BatchItemResultDto(index, id, HttpStatus.OK.value(), null);
+            }
+        }
+    }
+
+    public Map<Integer, String> insertNotes(List<Note> notes) {
+        Map<Integer, String> errors = execute(mongoTemplate.bulkOps(BulkMode.UNORDERED, Note.class).insert(notes));
+        List<NoteStats> stats = new ArrayList<>(notes.size());
+        List<NoteSearchEntry> entries = new ArrayList<>(notes.size());
+        WordCountBuckets.Delta delta = new WordCountBuckets.Delta();
+        for (int k = 0; k < notes.size(); k++) {
+            if (!errors.containsKey(k)) {
+                metrics.statsComputed(notes.get(k).getText());
+                NoteStats noteStats = NoteServiceImpl.buildStats(notes.get(k));
+                stats.add(noteStats);
+                entries.add(NoteSearchIndex.entry(notes.get(k), noteStats.getWords()));
+                delta.add(notes.get(k), noteStats.getWords());
+            }
+        }
+        if (!stats.isEmpty()) {
+            // stats that fail to insert here are backfilled on the first stats read
+            execute(mongoTemplate.bulkOps(BulkMode.UNORDERED, NoteStats.class).insert(stats));
+            execute(mongoTemplate.bulkOps(BulkMode.UNORDERED, NoteSearchEntry.class).insert(entries));
+            applyDelta(delta);
+        }
+        for (int k = 0; k < notes.size(); k++) {
+            if (!errors.containsKey(k)) events.created(notes.get(k));
+        }
+        return errors;
+    }
+
+    private void updateChunk(List<BatchUpdateNoteRequest> requests, Map<Integer, List<Tag>> chunk,
+                             BatchItemResultDto[] results) {
+        Map<String, Note> existing = existingNotes(chunk.keySet().stream().map(i -> requests.get(i).id()).toList());
+        BulkOperations notes = mongoTemplate.bulkOps(BulkMode.UNORDERED, Note.class);
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        List<Integer> written = new ArrayList<>();
+        for (Map.Entry<Integer, List<Tag>> item : chunk.entrySet()) {
+            int index = item.getKey();
+            BatchUpdateNoteRequest req = requests.get(index);
+            if (!existing.containsKey(req.id())) {
+                results[index] = new BatchItemResultDto(index, req.id(), HttpStatus.NOT_FOUND.value(), NOTE_NOT_FOUND);
+                continue;
+            }
+            Note previous = existing.get(req.id());
+            notes.upsert(NoteServiceImpl.versionedQuery(req.id(), version(previous)), new Update()
+                    .set("title", req.title())
+                    .set("text", req.text())
+                    .set("tags", item.getValue())
+                    .set("lastModifiedDate", now)
+                    .inc("version", 1));
+            written.add(index);
+        }
+        if (written.isEmpty()) return;
+
+        Map<Integer, String> errors = executeGuarded(notes, written.stream().map(i -> requests.get(i).id()).toList());
+        BulkOperations stats = mongoTemplate.bulkOps(BulkMode.UNORDERED, NoteStats.class);
+        BulkOperations search = mongoTemplate.bulkOps(BulkMode.UNORDERED, NoteSearchEntry.class);
+        WordCountBuckets.Delta delta = new WordCountBuckets.Delta();
+        boolean statsChanged = false;
+        for (int k = 0; k < written.size(); k++) {
+            int index = written.get(k);
+            BatchUpdateNoteRequest req = requests.get(index);
+            cache.evict(req.id());
+            String error = errors.get(k);
+            if (error != null) {
+                HttpStatus status = NOTE_NOT_FOUND.equals(error) ? HttpStatus.NOT_FOUND : HttpStatus.CONFLICT;
+                results[index] = new BatchItemResultDto(index, req.id(), status.value(), error);
+                continue;
+            }
+            results[index] = new BatchItemResultDto(index, req.id(), HttpStatus.OK.value(), null);
+            Note previous = existing.get(req.id());
+            Note note = Note.builder()
+                    .id(req.id())
+                    .title(req.title())
+                    .createdDate(previous.getCreatedDate())
+                    .lastModifiedDate(now)
+                    .text(req.text())
+                    .tags(chunk.get(index))
+                    .version(version(previous) + 1)
+                    .build();
+            metrics.statsComputed(note.getText());
+            NoteStats noteStats = NoteServiceImpl.buildStats(note);
+            delta.remove(previous, TextStatisticsUtil.wordCounts(previous.getText()));
+            delta.add(note, noteStats.getWords());
+            stats.upsert(byId(req.id()), new Update()
+                    .set("textHash", noteStats.getTextHash())
+                    .set("words", noteStats.getWords()));
+            NoteSearchEntry entry = NoteSearchIndex.entry(note, noteStats.getWords());
+            search.upsert(byId(req.id()), new Update()
+                    .set("title", entry.getTitle())
+                    .set("createdDate", entry.getCreatedDate())
+                    .set("tags", entry.getTags())
+                    .set("terms", entry.getTerms()));
+            events.updated(note);
+            statsChanged = true;
+        }
+        if (statsChanged) {
+            execute(stats);
+            execute(search);
+            applyDelta(delta);
+        }
+    }
+
+    private void deleteChunk(List<String> ids, List<Integer> chunk, BatchItemResultDto[] results) {
+        Map<String, Note> existing = existingNotes(chunk.stream().map(ids::get).toList());
+        for (int index : chunk) {
+            String id = ids.get(index);
+            if (existing.containsKey(id)) {
+                results[index] = new BatchItemResultDto(index, id, HttpStatus.NO_CONTENT.value(), null);
+            } else {
+                results[index] = new BatchItemResultDto(index, id, HttpStatus.NOT_FOUND.value(), NOTE_NOT_FOUND);
+            }
+        }
+        if (existing.isEmpty()) return;
+
+        Query query = Query.query(Criteria.where("id").in(existing.keySet()));
+        execute(mongoTemplate.bulkOps(BulkMode.UNORDERED, Note.class).remove(query));
+        execute(mongoTemplate.bulkOps(BulkMode.UNORDERED, NoteStats.class).remove(query));
+        execute(mongoTemplate.bulkOps(BulkMode.UNORDERED, NoteSearchEntry.class).remove(query));
+        WordCountBuckets.Delta delta = new WordCountBuckets.Delta();
+        existing.values().forEach(note -> delta.remove(note, TextStatisticsUtil.wordCounts(note.getText())));
+        applyDelta(delta);
+        existing.keySet().forEach(cache::evict);
+        existing.values().forEach(events::deleted);
+    }
+
+    private Map<String, Note> existingNotes(List<String> ids) {
+        Query query = Query.query(Criteria.where("id").in(ids));
+        query.fields().include("id", "createdDate", "text", "tags", "version");
+        return mongoTemplate.find(query, Note.class).stream()
+                .collect(Collectors.toMap(Note::getId, Function.identity()));
+    }
+
+    private void applyDelta(WordCountBuckets.Delta delta) {
+        List<Pair<Query, Update>> updates = delta.updates();
+        if (!updates.isEmpty()) {
+            execute(mongoTemplate.bulkOps(BulkMode.UNORDERED, WordCounter.class).upsert(updates));
+        }
+        List<Pair<Query, Update>> tagCounts = delta.tagCountUpdates();
+        if (!tagCounts.isEmpty()) {
+            execute(mongoTemplate.bulkOps(BulkMode.UNORDERED, TagCount.class).upsert(tagCounts));
+        }
+    }
+
+    private static Query byId(String id) {
+        return Query.query(Criteria.where("id").is(id));
+    }
+
+    private static long version(Note note) {
+        return note.getVersion() == null ? 0 : note.getVersion();
+    }
+
+    /**
+     * Runs upserts guarded by the version that was read. One that finds the note changed cannot match and fails
+     * on the duplicate id, which marks exactly the items that lost a race; one that inserts found the note deleted,
+     * so the partial document it wrote is removed again.
+     */
+    private Map<Integer, String> executeGuarded(BulkOperations ops, List<String> ids) {
+        Map<Integer, String> errors = new HashMap<>();
+        BulkWriteResult result;
+        try {
+            result = ops.execute();
+        } catch (BulkOperationException e) {
+            result = e.getResult();
+            for (BulkWriteError error : e.getErrors()) {
+                errors.put(error.getIndex(),
+                        error.getCode() == DUPLICATE_KEY ? NoteServiceImpl.NOTE_MODIFIED : error.getMessage());
+            }
+        }
+        List<String> inserted = new ArrayList<>();
+        for (BulkWriteUpsert upsert : result.getUpserts()) {
+            errors.put(upsert.getIndex(), NOTE_NOT_FOUND);
+            inserted.add(ids.get(upsert.getIndex()));
+        }
+        if (!inserted.isEmpty()) {
+            mongoTemplate.remove(Query.query(Criteria.where("id").in(inserted).and("createdDate").exists(false)), Note.class);
+        }
+        return errors;
+    }
+
+    private static Map<Integer, String> execute(BulkOperations ops) {
+        try {
+            ops.execute();
+            return Map.of();
+        } catch (BulkOperationException e) {
+            Map<Integer, String> errors = new HashMap<>();
+            for (BulkWriteError error : e.getErrors()) {
+                errors.put(error.getIndex(), error.getMessage());
+            }
+            return errors;
+        }
+    }
+
+    private String validate(Object req) {
+        if (req == null) return "Item must not be null";
+        Set<ConstraintViolation<Object>> violations = validator.validate(req);
+        if (violations.isEmpty()) return null;
+        return violations.stream()
+                .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+
+    private void checkBatchSize(int size) {
+        if (size > maxItems) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Batch too large: " + size + " items, at most " + maxItems + " are allowed.");
+        }
+    }
+
+    static BatchResultDto summarize(BatchItemResultDto[] results) {
+        int succeeded = (int) Arrays.stream(results).filter(r -> r.status() < 400).count();
+        return new BatchResultDto(succeeded, results.length - succeeded, List.of(results));
+    }
+
+    static class ImportProgress {
+        private final AtomicLong accepted = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+        private final List<ImportErrorDto> errors = new ArrayList<>();
+        private final int maxReportedErrors;
+
+        ImportProgress(int maxReportedErrors) {
+            this.maxReportedErrors = maxReportedErrors;
+        }
+
+        void accept() {
+            accepted.incrementAndGet();
+        }
+
+        void reject(long line, String error) {
+            rejected.incrementAndGet();
+            synchronized (errors) {
+                if (errors.size() < maxReportedErrors) {
+                    errors.add(new ImportErrorDto(line, error));
+                }
+            }
+        }
+
+        ImportResultDto toResult() {
+            List<ImportErrorDto> sorted;
+            synchronized (errors) {
+                sorted = errors.stream().sorted(Comparator.comparingLong(ImportErrorDto::line)).toList();
+            }
+            return new ImportResultDto(accepted.get(), rejected.get(), sorted);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.testtask.note;
+
+import com.example.testtask.note.model.Note;
+
+import java.util.function.Function;
+
+public interface NoteCache {
+    Note getIfPresent(String id);
+
+    /**
+     * Taken before a note is read from the database and handed to {@link #fill}, which drops the read when the
+     * id was evicted in between.
+     */
+    long stamp(String id);
+
+    /**
+     * Caches a note read from the database, unless its id was evicted since {@code stamp} or a newer version is
+     * already cached.
+     */
+    void fill(Note note, long stamp);
+
+    /**
+     * Caches a note this instance has just written, unless a newer version is already cached.
+     */
+    void put(Note note);
+
+    void evict(String id);
+
+    default Note get(String id, Function<String, Note> loader) {
+        Note cached = getIfPresent(id);
+        if (cached != null) return cached;
+        long stamp = stamp(id);
+        Note loaded = loader.apply(id);
+        if (loaded != null) fill(loaded, stamp);
+        return loaded;
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.testtask.note;
+
+import com.example.testtask.note.model.Note;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class NoteCacheConfig {
+
+    @Bean
+    public NoteCache noteCache(@Value("${notes.cache.enabled:true}") boolean enabled,
+                               @Value("${notes.cache.max-entries:10000}") long maxEntries,
+                               @Value("${notes.cache.max-weight:50000000}") long maxWeight,
+                               @Value("${notes.cache.ttl:10m}") Duration ttl,
+                               MeterRegistry registry) {
+        if (!enabled) {
+            return new NoteCache() {
+                @Override
+                public Note getIfPresent(String id) {
+                    return null;
+                }
+
+                @Override
+                public long stamp(String id) {
+                    return 0;
+                }
+
+                @Override
+                public void fill(Note note, long stamp) {
+                }
+
+                @Override
+                public void put(Note note) {
+                }
+
+                @Override
+                public void evict(String id) {
+                }
+            };
+        }
+        return new CaffeineNoteCache(maxEntries, maxWeight, ttl, registry);
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.testtask.note;
+
+import com.example.testtask.note.model.Tag;
+import com.mongodb.MongoCommandException;
+import com.mongodb.MongoException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Feeds {@link NoteEvents} from one change stream on the notes collection, so events cover writes of every
+ * instance and each client costs no database cursor. The cursor resumes from its last token after errors, and
+ * a cursor that cannot be opened at startup is retried the same way; until one is open, services publish their
+ * own writes. Standalone servers have no change streams; then nothing is started.
+ */
+@Component
+@Profile("!memory")
+@ConditionalOnProperty(name = "notes.events.change-stream", havingValue = "true", matchIfMissing = true)
+public class NoteChangeStream {
+    private static final String COLLECTION = "notes";
+    private static final int CHANGE_STREAMS_UNSUPPORTED = 40573;
+    private static final List<Bson> PIPELINE = List.of(
+            Aggregates.match(Filters.in("operationType", "insert", "update", "replace", "delete")),
+            Aggregates.project(Projections.include("operationType", "documentKey", "wallTime",
+                    "fullDocument.tags", "fullDocument.version")));
+
+    private final MongoTemplate mongoTemplate;
+    private final NoteEvents events;
+    private volatile boolean running;
+    private MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor;
+    private Thread reader;
+
+    @Autowired
+    public NoteChangeStream(MongoTemplate mongoTemplate, NoteEvents events) {
+        this.mongoTemplate = mongoTemplate;
+        this.events = events;
+    }
+
+    @PostConstruct
+    public void start() {
+        try {
+            cursor = open(null);
+            events.external(true);
+        } catch (MongoException e) {
+            if (e instanceof MongoCommandException command && command.getErrorCode() == CHANGE_STREAMS_UNSUPPORTED) {
+                return;
+            }
+        }
+        running = true;
+        reader = Thread.ofPlatform().name("note-change-stream").daemon().start(this::run);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (reader == null) return;
+        running = false;
+        reader.join();
+    }
+
+    private void run() {
+        BsonDocument resumeToken = null;
+        while (running) {
+            try {
+                if (cursor == null) {
+                    cursor = open(resumeToken);
+                    events.external(true);
+                }
+                ChangeStreamDocument<Document> change = cursor.tryNext();
+                if (change != null) publish(change);
+                resumeToken = cursor.getResumeToken();
+            } catch (MongoException e) {
+                if (cursor != null) cursor.close();
+                cursor = null;
+                sleep();
+            }
+        }
+        if (cursor != null) cursor.close();
+    }
+
+    private MongoChangeStreamCursor<ChangeStreamDocument<Document>> open(BsonDocument resumeToken) {
+        ChangeStreamIterable<Document> watch = mongoTemplate.getCollection(COLLECTION).watch(PIPELINE)
+                .fullDocument(FullDocument.UPDATE_LOOKUP)
+                .maxAwaitTime(1, TimeUnit.SECONDS);
+        if (resumeToken != null) watch = watch.resumeAfter(resumeToken);
+        return watch.cursor();
+    }
+
+    private void publish(ChangeStreamDocument<Document> change) {
+        String type = switch (change.getOperationType()) {
+            case INSERT -> NoteEvents.CREATED;
+            case DELETE -> NoteEvents.DELETED;
+            default -> NoteEvents.UPDATED;
+        };
+        Document note = change.getFullDocument();
+        if (note == null && !type.equals(NoteEvents.DELETED)) {
+            // deleted before the lookup; its delete event follows
+            return;
+        }
+        Long version = null;
+        List<Tag> tags = null;
+        if (note != null) {
+            Number stored = note.get("version", Number.class);
+            version = stored == null ? 0L : stored.longValue();
+            tags = NoteTagCodec.decode(note.get("tags"));
+        }
+        Instant time = change.getWallTime() == null
+                ? Instant.now()
+                : Instant.ofEpochMilli(change.getWallTime().getValue());
+        events.publish(change.getResumeToken().getString("_data").getValue(), type, id(change.getDocumentKey()),
+                version, tags, time);
+    }
+
+    private static String id(BsonDocument documentKey) {
+        BsonValue id = documentKey.get("_id");
+        return id.isObjectId() ? id.asObjectId().getValue().toHexString() : id.asString().getValue();
+    }
+
+    private void sleep() {
+        try {
+            Thread.sleep(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
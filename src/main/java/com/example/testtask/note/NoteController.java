@@ -1,59 +1,170 @@
 package com.example.testtask.note;
 
+import com.example.testtask.note.dto.BatchResultDto;
+import com.example.testtask.note.dto.BatchUpdateNoteRequest;
 import com.example.testtask.note.dto.CreateNoteRequest;
+import com.example.testtask.note.dto.ImportResultDto;
 import com.example.testtask.note.dto.NoteDto;
+import com.example.testtask.note.dto.NoteEventDto;
 import com.example.testtask.note.dto.NoteListItemDto;
+import com.example.testtask.note.dto.NoteSearchResultDto;
+import com.example.testtask.note.dto.NoteSliceDto;
+import com.example.testtask.note.dto.NoteVersion;
 import com.example.testtask.note.dto.UpdateNoteRequest;
 import com.example.testtask.note.model.Note;
+import com.example.testtask.note.model.WordCount;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.context.annotation.Profile;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import reactor.core.Disposable;
+import reactor.core.scheduler.Schedulers;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 @RestController
+@Profile("!reactive")
 @RequestMapping("/api/notes")
 @Validated
 public class NoteController {
     private final NoteService service;
+    private final NoteBatchService batchService;
+    private final NoteEvents events;
+    private final ObjectMapper objectMapper;
     @Autowired
-    public NoteController(NoteService service) { this.service = service; }
+    public NoteController(NoteService service, NoteBatchService batchService, NoteEvents events,
+                          ObjectMapper objectMapper) {
+        this.service = service;
+        this.batchService = batchService;
+        this.events = events;
+        this.objectMapper = objectMapper;
+    }
 
     @PostMapping
     public ResponseEntity<NoteDto> create(@Valid @RequestBody CreateNoteRequest req) {
         Note note = service.create(req);
-        return ResponseEntity.ok(toDto(note));
+        return ResponseEntity.ok(NoteDto.from(note));
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<BatchResultDto> createBatch(@RequestBody List<CreateNoteRequest> reqs) {
+        return ResponseEntity.ok(batchService.createAll(reqs));
+    }
+
+    @PutMapping("/batch")
+    public ResponseEntity<BatchResultDto> updateBatch(@RequestBody List<BatchUpdateNoteRequest> reqs) {
+        return ResponseEntity.ok(batchService.updateAll(reqs));
+    }
+
+    @PostMapping("/batch/delete")
+    public ResponseEntity<BatchResultDto> deleteBatch(@RequestBody List<String> ids) {
+        return ResponseEntity.ok(batchService.deleteAll(ids));
+    }
+
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<ImportResultDto> importNotes(InputStream body) throws IOException {
+        return ResponseEntity.ok(batchService.importNotes(body));
     }
 
     @GetMapping
     public ResponseEntity<Page<NoteListItemDto>> list(
             @RequestParam(required = false) List<String> tags,
+            @RequestParam(required = false) String tagMatch,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size) {
 
         Pageable pageable = PageRequest.of(page, size, Sort.by("createdDate").descending());
-        Page<Note> notes = service.list(tags, pageable);
-        Page<NoteListItemDto> dtoPage = notes.map(n -> new NoteListItemDto(n.getId(), n.getTitle(), n.getCreatedDate()));
-        return ResponseEntity.ok(dtoPage);
+        Page<NoteListItemDto> notes = service.list(TagFilter.of(tags, tagMatch), pageable);
+        return ResponseEntity.ok(notes);
+    }
+
+    @GetMapping(params = "cursor")
+    public ResponseEntity<NoteSliceDto> listByCursor(
+            @RequestParam(required = false) List<String> tags,
+            @RequestParam(required = false) String tagMatch,
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+
+        Slice<NoteListItemDto> notes = service.listAfter(TagFilter.of(tags, tagMatch), NoteCursor.decode(cursor), size);
+        return ResponseEntity.ok(new NoteSliceDto(notes.getContent(), size, notes.hasNext(), NoteCursor.next(notes)));
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Long>> aggregateStats(
+            @RequestParam(required = false) String tag,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "100") int limit,
+            @RequestParam(defaultValue = "1") int minCount) {
+        return ResponseEntity.ok(service.aggregateStats(tag, from, to, limit, minCount));
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<Page<NoteSearchResultDto>> search(
+            @RequestParam String q,
+            @RequestParam(required = false) List<String> tags,
+            @RequestParam(required = false) String tagMatch,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(service.search(q, TagFilter.of(tags, tagMatch), PageRequest.of(page, size)));
+    }
+
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter events(@RequestParam(required = false) List<String> tags,
+                             @RequestParam(required = false) String tagMatch,
+                             @RequestParam(required = false) String lastEventId,
+                             @RequestHeader(value = "Last-Event-ID", required = false) String lastEventIdHeader) {
+        SseEmitter emitter = new SseEmitter();
+        Disposable subscription = events.stream(TagFilter.of(tags, tagMatch),
+                        lastEventIdHeader != null ? lastEventIdHeader : lastEventId)
+                .publishOn(Schedulers.boundedElastic())
+                .subscribe(event -> send(emitter, event), emitter::completeWithError, emitter::complete);
+        emitter.onCompletion(subscription::dispose);
+        emitter.onTimeout(subscription::dispose);
+        emitter.onError(e -> subscription.dispose());
+        return emitter;
+    }
+
+    @GetMapping("/tags/counts")
+    public ResponseEntity<Map<String, Long>> tagCounts() {
+        return ResponseEntity.ok(service.tagCounts());
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<NoteDto> get(@PathVariable String id) {
+    public ResponseEntity<NoteDto> get(@PathVariable String id, WebRequest request) {
+        if (conditional(request) && notModified(service.version(id), request)) return null;
         Note n = service.get(id);
-        return ResponseEntity.ok(toDto(n));
+        return versioned(NoteVersion.of(n)).body(NoteDto.from(n));
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<NoteDto> update(@PathVariable String id, @Valid @RequestBody UpdateNoteRequest req) {
-        Note updated = service.update(id, req);
-        return ResponseEntity.ok(toDto(updated));
+    public ResponseEntity<NoteDto> update(@PathVariable String id, @Valid @RequestBody UpdateNoteRequest req,
+                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Note updated = service.update(id, req, NoteVersion.parseIfMatch(ifMatch));
+        return versioned(NoteVersion.of(updated)).body(NoteDto.from(updated));
     }
 
     @DeleteMapping("/{id}")
@@ -63,16 +174,70 @@ public class NoteController {
     }
 
     @GetMapping("/{id}/stats")
-    public ResponseEntity<Map<String, Integer>> stats(@PathVariable String id) {
-        return ResponseEntity.ok(service.stats(id));
+    public ResponseEntity<Map<String, Integer>> stats(
+            @PathVariable String id,
+            @RequestParam(defaultValue = "0") int limit,
+            @RequestParam(defaultValue = "1") int minCount,
+            WebRequest request) {
+        NoteVersion version = service.version(id);
+        if (notModified(version, request)) return null;
+        return versioned(version).body(service.stats(id, limit, minCount));
+    }
+
+    @GetMapping(value = "/{id}/stats/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamStats(
+            @PathVariable String id,
+            @RequestParam(defaultValue = "0") int limit,
+            @RequestParam(defaultValue = "1") int minCount) {
+        Stream<WordCount> words = service.streamStats(id, limit, minCount);
+        return ndjson(words, WordCount.class);
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(required = false) List<String> tags,
+                                                        @RequestParam(required = false) String tagMatch) {
+        Stream<NoteDto> notes = service.export(TagFilter.of(tags, tagMatch)).map(NoteDto::from);
+        return ndjson(notes, NoteDto.class);
+    }
+
+    private static boolean conditional(WebRequest request) {
+        return request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                || request.getHeader(HttpHeaders.IF_MODIFIED_SINCE) != null;
+    }
+
+    private static boolean notModified(NoteVersion version, WebRequest request) {
+        return request.checkNotModified(version.etag(), version.lastModifiedDate().toEpochMilli());
+    }
+
+    private static void send(SseEmitter emitter, ServerSentEvent<NoteEventDto> event) {
+        SseEmitter.SseEventBuilder sse = SseEmitter.event();
+        if (event.comment() != null) sse.comment(event.comment());
+        if (event.id() != null) sse.id(event.id());
+        if (event.event() != null) sse.name(event.event());
+        if (event.data() != null) sse.data(event.data(), MediaType.APPLICATION_JSON);
+        try {
+            emitter.send(sse);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static ResponseEntity.BodyBuilder versioned(NoteVersion version) {
+        return ResponseEntity.ok().eTag(version.etag()).lastModified(version.lastModifiedDate());
     }
 
-    private NoteDto toDto(Note n) {
-        List<String> tags = n.getTags() == null ? List.of() :
-                n.getTags().stream()
-                        .map(Enum::name)
-                        .toList();
-        return new NoteDto(n.getId(), n.getTitle(), n.getCreatedDate(), n.getText(), tags);
+    private <T> ResponseEntity<StreamingResponseBody> ndjson(Stream<T> items, Class<T> type) {
+        ObjectWriter writer = objectMapper.writerFor(type);
+        StreamingResponseBody body = out -> {
+            try (items) {
+                Iterator<T> it = items.iterator();
+                while (it.hasNext()) {
+                    out.write(writer.writeValueAsBytes(it.next()));
+                    out.write('\n');
+                }
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
 }
 
@@ -0,0 +1,43 @@
+package com.example.testtask.note;
+
+import com.example.testtask.note.dto.NoteListItemDto;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+public record NoteCursor(Instant createdDate, String id) {
+    private static final String INVALID_CURSOR = "Invalid cursor";
+
+    public static NoteCursor after(NoteListItemDto note) {
+        return new NoteCursor(note.createdDate(), note.id());
+    }
+
+    public static String next(Slice<NoteListItemDto> slice) {
+        if (!slice.hasNext()) return null;
+        return after(slice.getContent().get(slice.getNumberOfElements() - 1)).encode();
+    }
+
+    public String encode() {
+        String raw = createdDate.toEpochMilli() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static NoteCursor decode(String token) {
+        if (token == null || token.isBlank()) return null;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            if (separator <= 0 || separator == raw.length() - 1) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, INVALID_CURSOR);
+            }
+            Instant createdDate = Instant.ofEpochMilli(Long.parseLong(raw.substring(0, separator)));
+            return new NoteCursor(createdDate, raw.substring(separator + 1));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, INVALID_CURSOR);
+        }
+    }
+}
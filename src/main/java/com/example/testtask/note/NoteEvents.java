@@ -0,0 +1,178 @@
+package com.example.testtask.note;
+
+import com.example.testtask.note.dto.NoteEventDto;
+import com.example.testtask.note.model.Note;
+import com.example.testtask.note.model.Tag;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.util.concurrent.Queues;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Fans note change events out to SSE subscribers from one source: the shared {@link NoteChangeStream} cursor
+ * when Mongo supports change streams, otherwise the writes the services of this instance publish. The last
+ * {@code notes.events.buffer} events are kept, so a client reconnecting with {@code Last-Event-ID} receives
+ * exactly the events it missed; an id that is no longer buffered gets a {@code reset} event and should re-list.
+ * Every subscriber has a bounded queue and is completed when it falls behind, to reconnect and catch up.
+ */
+@Component
+public class NoteEvents {
+    static final String CREATED = "created";
+    static final String UPDATED = "updated";
+    static final String DELETED = "deleted";
+    static final String RESET = "reset";
+
+    private final Object lock = new Object();
+    private final ArrayDeque<Entry> recent = new ArrayDeque<>();
+    private final List<Subscriber> subscribers = new ArrayList<>();
+    private final int bufferSize;
+    private final int subscriberBuffer;
+    private final int maxSubscribers;
+    private final Duration heartbeat;
+    private final String localPrefix = Long.toString(System.currentTimeMillis(), 36) + "-";
+    private long localSequence;
+    private volatile boolean external;
+
+    @Autowired
+    public NoteEvents(MeterRegistry registry,
+                      @Value("${notes.events.buffer:10000}") int bufferSize,
+                      @Value("${notes.events.subscriber-buffer:1000}") int subscriberBuffer,
+                      @Value("${notes.events.max-subscribers:10000}") int maxSubscribers,
+                      @Value("${notes.events.heartbeat:15s}") Duration heartbeat) {
+        this.bufferSize = bufferSize;
+        this.subscriberBuffer = subscriberBuffer;
+        this.maxSubscribers = maxSubscribers;
+        this.heartbeat = heartbeat;
+        Gauge.builder("notes.events.subscribers", this, NoteEvents::subscriberCount)
+                .description("Open note event streams")
+                .register(registry);
+    }
+
+    public void created(Note note) {
+        local(CREATED, note);
+    }
+
+    public void updated(Note note) {
+        local(UPDATED, note);
+    }
+
+    public void deleted(Note note) {
+        local(DELETED, note);
+    }
+
+    /**
+     * Events accepted by {@code tags}, starting after {@code lastEventId} when one is given, with a comment
+     * every {@code notes.events.heartbeat} so idle connections stay open.
+     */
+    public Flux<ServerSentEvent<NoteEventDto>> stream(TagFilter tags, String lastEventId) {
+        return subscribe(tags, lastEventId).publish(events -> Flux.merge(
+                events.map(event -> ServerSentEvent.builder(event).id(event.eventId()).event(event.type()).build()),
+                Flux.interval(heartbeat)
+                        .map(tick -> ServerSentEvent.<NoteEventDto>builder().comment("heartbeat").build())
+                        .takeUntilOther(events.then())));
+    }
+
+    public Flux<NoteEventDto> subscribe(TagFilter tags, String lastEventId) {
+        return Flux.defer(() -> {
+            Subscriber subscriber;
+            synchronized (lock) {
+                if (subscribers.size() >= maxSubscribers) {
+                    return Flux.error(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                            "Too many event subscribers, retry later."));
+                }
+                List<Entry> missed = missed(lastEventId);
+                int capacity = subscriberBuffer + (missed == null ? 1 : missed.size());
+                subscriber = new Subscriber(tags, Sinks.many().unicast()
+                        .onBackpressureBuffer(Queues.<NoteEventDto>get(capacity).get()));
+                if (missed == null) {
+                    subscriber.sink().tryEmitNext(new NoteEventDto(null, RESET, null, null, null, Instant.now()));
+                } else {
+                    missed.forEach(subscriber::deliver);
+                }
+                subscribers.add(subscriber);
+            }
+            return subscriber.sink().asFlux().doFinally(signal -> {
+                synchronized (lock) {
+                    subscribers.remove(subscriber);
+                }
+            });
+        });
+    }
+
+    void external(boolean external) {
+        this.external = external;
+    }
+
+    void publish(String eventId, String type, String noteId, Long version, List<Tag> tags, Instant time) {
+        NoteEventDto event = new NoteEventDto(eventId, type, noteId, version,
+                tags == null ? null : tags.stream().map(Tag::name).toList(), time);
+        Entry entry = new Entry(event, tags == null ? -1 : NoteTagCodec.mask(tags));
+        synchronized (lock) {
+            recent.addLast(entry);
+            if (recent.size() > bufferSize) recent.removeFirst();
+            subscribers.removeIf(subscriber -> !subscriber.deliver(entry));
+        }
+    }
+
+    private void local(String type, Note note) {
+        if (external) return;
+        synchronized (lock) {
+            publish(localPrefix + (++localSequence), type, note.getId(), note.getVersion(), note.getTags(),
+                    Instant.now());
+        }
+    }
+
+    private List<Entry> missed(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) return List.of();
+        List<Entry> missed = new ArrayList<>();
+        Iterator<Entry> newestFirst = recent.descendingIterator();
+        while (newestFirst.hasNext()) {
+            Entry entry = newestFirst.next();
+            if (lastEventId.equals(entry.event().eventId())) {
+                return missed.reversed();
+            }
+            missed.add(entry);
+        }
+        return null;
+    }
+
+    private int subscriberCount() {
+        synchronized (lock) {
+            return subscribers.size();
+        }
+    }
+
+    private record Entry(NoteEventDto event, int mask) {
+    }
+
+    private record Subscriber(TagFilter tags, Sinks.Many<NoteEventDto> sink) {
+        /**
+         * Returns false once the subscriber has to be dropped: it cancelled or its queue is full, in which case
+         * it is completed after draining what is queued. Events without tags reach a tag filter only as deletes,
+         * which the change stream reports without the note.
+         */
+        boolean deliver(Entry entry) {
+            if (entry.mask() >= 0 ? !tags.accepts(entry.mask())
+                    : !tags.isEmpty() && !DELETED.equals(entry.event().type())) return true;
+            Sinks.EmitResult result = sink.tryEmitNext(entry.event());
+            if (result == Sinks.EmitResult.FAIL_OVERFLOW) {
+                sink.tryEmitComplete();
+            }
+            return result.isSuccess();
+        }
+    }
+}
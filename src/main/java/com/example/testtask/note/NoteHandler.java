@@ -0,0 +1,253 @@
+package com.example.testtask.note;
+
+import com.example.testtask.note.dto.BatchUpdateNoteRequest;
+import com.example.testtask.note.dto.CreateNoteRequest;
+import com.example.testtask.note.dto.NoteDto;
+import com.example.testtask.note.dto.NoteListItemDto;
+import com.example.testtask.note.dto.NoteSliceDto;
+import com.example.testtask.note.dto.NoteVersion;
+import com.example.testtask.note.dto.UpdateNoteRequest;
+import com.example.testtask.note.model.WordCount;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.reactive.function.BodyExtractors;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebInputException;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.stream.Collectors;
+
+@Component
+@Profile("reactive")
+public class NoteHandler {
+    private static final int IMPORT_BUFFER_DEMAND = 16;
+
+    private final ReactiveNoteService service;
+    private final NoteBatchService batchService;
+    private final NoteEvents events;
+    private final Validator validator;
+
+    @Autowired
+    public NoteHandler(ReactiveNoteService service, NoteBatchService batchService, NoteEvents events,
+                       Validator validator) {
+        this.service = service;
+        this.batchService = batchService;
+        this.events = events;
+        this.validator = validator;
+    }
+
+    public Mono<ServerResponse> create(ServerRequest request) {
+        return body(request, CreateNoteRequest.class)
+                .flatMap(service::create)
+                .flatMap(note -> ServerResponse.ok().bodyValue(NoteDto.from(note)));
+    }
+
+    public Mono<ServerResponse> createBatch(ServerRequest request) {
+        return request.bodyToMono(new ParameterizedTypeReference<List<CreateNoteRequest>>() {})
+                .flatMap(reqs -> blocking(() -> batchService.createAll(reqs)))
+                .flatMap(result -> ServerResponse.ok().bodyValue(result));
+    }
+
+    public Mono<ServerResponse> updateBatch(ServerRequest request) {
+        return request.bodyToMono(new ParameterizedTypeReference<List<BatchUpdateNoteRequest>>() {})
+                .flatMap(reqs -> blocking(() -> batchService.updateAll(reqs)))
+                .flatMap(result -> ServerResponse.ok().bodyValue(result));
+    }
+
+    public Mono<ServerResponse> deleteBatch(ServerRequest request) {
+        return request.bodyToMono(new ParameterizedTypeReference<List<String>>() {})
+                .flatMap(ids -> blocking(() -> batchService.deleteAll(ids)))
+                .flatMap(result -> ServerResponse.ok().bodyValue(result));
+    }
+
+    public Mono<ServerResponse> importNotes(ServerRequest request) {
+        return blocking(() -> {
+                    try (InputStream body = DataBufferUtils.subscriberInputStream(
+                            request.body(BodyExtractors.toDataBuffers()), IMPORT_BUFFER_DEMAND)) {
+                        return batchService.importNotes(body);
+                    }
+                })
+                .flatMap(result -> ServerResponse.ok().bodyValue(result));
+    }
+
+    public Mono<ServerResponse> list(ServerRequest request) {
+        Pageable pageable = PageRequest.of(intParam(request, "page", 0), intParam(request, "size", 20),
+                Sort.by("createdDate").descending());
+        TagFilter tags = tags(request);
+        if (request.headers().accept().contains(MediaType.APPLICATION_NDJSON)) {
+            return ServerResponse.ok()
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .body(service.listItems(tags, pageable), NoteListItemDto.class);
+        }
+        return service.list(tags, pageable)
+                .flatMap(page -> ServerResponse.ok().bodyValue(page));
+    }
+
+    public Mono<ServerResponse> listByCursor(ServerRequest request) {
+        int size = intParam(request, "size", 20);
+        NoteCursor cursor = NoteCursor.decode(request.queryParam("cursor").orElse(null));
+        return service.listAfter(tags(request), cursor, size)
+                .flatMap(notes -> ServerResponse.ok().bodyValue(
+                        new NoteSliceDto(notes.getContent(), size, notes.hasNext(), NoteCursor.next(notes))));
+    }
+
+    public Mono<ServerResponse> events(ServerRequest request) {
+        String lastEventId = request.headers().firstHeader("Last-Event-ID");
+        if (lastEventId == null) lastEventId = request.queryParam("lastEventId").orElse(null);
+        return ServerResponse.ok()
+                .contentType(MediaType.TEXT_EVENT_STREAM)
+                .body(BodyInserters.fromServerSentEvents(events.stream(tags(request), lastEventId)));
+    }
+
+    public Mono<ServerResponse> aggregateStats(ServerRequest request) {
+        return service.aggregateStats(request.queryParam("tag").orElse(null), dateParam(request, "from"),
+                        dateParam(request, "to"), intParam(request, "limit", 100), intParam(request, "minCount", 1))
+                .flatMap(stats -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(stats));
+    }
+
+    public Mono<ServerResponse> search(ServerRequest request) {
+        String query = request.queryParam("q")
+                .orElseThrow(() -> new ServerWebInputException("Required query parameter 'q' is not present."));
+        Pageable pageable = PageRequest.of(intParam(request, "page", 0), intParam(request, "size", 20));
+        return service.search(query, tags(request), pageable)
+                .flatMap(page -> ServerResponse.ok().bodyValue(page));
+    }
+
+    public Mono<ServerResponse> tagCounts(ServerRequest request) {
+        return service.tagCounts()
+                .flatMap(counts -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(counts));
+    }
+
+    public Mono<ServerResponse> get(ServerRequest request) {
+        String id = request.pathVariable("id");
+        Mono<ServerResponse> notModified = conditional(request)
+                ? service.version(id).flatMap(version -> notModified(request, version))
+                : Mono.empty();
+        return notModified.switchIfEmpty(Mono.defer(() -> service.get(id)
+                .flatMap(note -> versioned(NoteVersion.of(note)).bodyValue(NoteDto.from(note)))));
+    }
+
+    public Mono<ServerResponse> update(ServerRequest request) {
+        String id = request.pathVariable("id");
+        Long expectedVersion = NoteVersion.parseIfMatch(request.headers().firstHeader(HttpHeaders.IF_MATCH));
+        return body(request, UpdateNoteRequest.class)
+                .flatMap(req -> service.update(id, req, expectedVersion))
+                .flatMap(note -> versioned(NoteVersion.of(note)).bodyValue(NoteDto.from(note)));
+    }
+
+    public Mono<ServerResponse> delete(ServerRequest request) {
+        return service.delete(request.pathVariable("id"))
+                .then(ServerResponse.noContent().build());
+    }
+
+    public Mono<ServerResponse> stats(ServerRequest request) {
+        String id = request.pathVariable("id");
+        int limit = intParam(request, "limit", 0);
+        int minCount = intParam(request, "minCount", 1);
+        return service.version(id)
+                .flatMap(version -> notModified(request, version).switchIfEmpty(Mono.defer(() ->
+                        service.stats(id, limit, minCount)
+                                .flatMap(stats -> versioned(version)
+                                        .contentType(MediaType.APPLICATION_JSON)
+                                        .bodyValue(stats)))));
+    }
+
+    private static boolean conditional(ServerRequest request) {
+        return request.headers().firstHeader(HttpHeaders.IF_NONE_MATCH) != null
+                || request.headers().firstHeader(HttpHeaders.IF_MODIFIED_SINCE) != null;
+    }
+
+    private static Mono<ServerResponse> notModified(ServerRequest request, NoteVersion version) {
+        return conditional(request)
+                ? request.checkNotModified(version.lastModifiedDate(), version.etag())
+                : Mono.empty();
+    }
+
+    private static ServerResponse.BodyBuilder versioned(NoteVersion version) {
+        return ServerResponse.ok().eTag(version.etag()).lastModified(version.lastModifiedDate());
+    }
+
+    public Mono<ServerResponse> streamStats(ServerRequest request) {
+        return ServerResponse.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(service.streamStats(request.pathVariable("id"),
+                        intParam(request, "limit", 0), intParam(request, "minCount", 1)), WordCount.class);
+    }
+
+    public Mono<ServerResponse> export(ServerRequest request) {
+        return ServerResponse.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(service.export(tags(request)).map(NoteDto::from), NoteDto.class);
+    }
+
+    private <T> Mono<T> body(ServerRequest request, Class<T> type) {
+        return request.bodyToMono(type)
+                .switchIfEmpty(Mono.error(() -> new ServerWebInputException("Request body is missing")))
+                .doOnNext(this::validate);
+    }
+
+    private void validate(Object req) {
+        Set<ConstraintViolation<Object>> violations = validator.validate(req);
+        if (violations.isEmpty()) return;
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, violations.stream()
+                .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; ")));
+    }
+
+    private static <T> Mono<T> blocking(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private static TagFilter tags(ServerRequest request) {
+        List<String> values = request.queryParams().get("tags");
+        List<String> tags = values == null ? null : values.stream()
+                .flatMap(v -> Arrays.stream(StringUtils.commaDelimitedListToStringArray(v)))
+                .filter(StringUtils::hasText)
+                .toList();
+        return TagFilter.of(tags, request.queryParam("tagMatch").orElse(null));
+    }
+
+    private static LocalDate dateParam(ServerRequest request, String name) {
+        String value = request.queryParam(name).orElse(null);
+        if (!StringUtils.hasText(value)) return null;
+        try {
+            return LocalDate.parse(value.trim());
+        } catch (DateTimeParseException e) {
+            throw new ServerWebInputException("Invalid value for '" + name + "': " + value);
+        }
+    }
+
+    private static int intParam(ServerRequest request, String name, int defaultValue) {
+        String value = request.queryParam(name).orElse(null);
+        if (!StringUtils.hasText(value)) return defaultValue;
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new ServerWebInputException("Invalid value for '" + name + "': " + value);
+        }
+    }
+}
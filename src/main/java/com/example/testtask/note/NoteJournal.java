@@ -0,0 +1,137 @@
+package com.example.testtask.note;
+
+import com.example.testtask.note.model.Note;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * Append-only NDJSON log of note writes next to a snapshot of all notes. Startup replays the snapshot and then
+ * the journal; a torn last journal line from a crash mid-append is dropped. Compaction writes a new snapshot to
+ * a temporary file, moves it over the old one atomically and only then truncates the journal, so a crash at any
+ * point leaves a replayable pair.
+ */
+final class NoteJournal implements Closeable {
+    private static final String SNAPSHOT = "notes.snapshot.ndjson";
+    private static final String JOURNAL = "notes.journal.ndjson";
+
+    private final Path snapshot;
+    private final Path journal;
+    private final ObjectReader reader;
+    private final ObjectWriter writer;
+    private final boolean fsync;
+    private FileChannel channel;
+    private int entries;
+
+    record Entry(String op, String id, Note note) {
+        static final String PUT = "put";
+        static final String DELETE = "delete";
+    }
+
+    NoteJournal(Path directory, ObjectMapper objectMapper, boolean fsync) throws IOException {
+        Files.createDirectories(directory);
+        this.snapshot = directory.resolve(SNAPSHOT);
+        this.journal = directory.resolve(JOURNAL);
+        this.reader = objectMapper.readerFor(Entry.class);
+        this.writer = objectMapper.writerFor(Entry.class);
+        this.fsync = fsync;
+    }
+
+    void replay(Consumer<Note> put, Consumer<String> delete) throws IOException {
+        read(snapshot, put, delete, false);
+        read(journal, put, delete, true);
+        channel = FileChannel.open(journal, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+    }
+
+    void put(Note note) throws IOException {
+        append(new Entry(Entry.PUT, note.getId(), note));
+    }
+
+    void delete(String id) throws IOException {
+        append(new Entry(Entry.DELETE, id, null));
+    }
+
+    int entries() {
+        return entries;
+    }
+
+    void compact(Collection<Note> notes) throws IOException {
+        Path tmp = snapshot.resolveSibling(SNAPSHOT + ".tmp");
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            BufferedWriter lines = new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(out),
+                    StandardCharsets.UTF_8));
+            for (Note note : notes) {
+                lines.write(writer.writeValueAsString(new Entry(Entry.PUT, note.getId(), note)));
+                lines.newLine();
+            }
+            lines.flush();
+            out.force(true);
+        }
+        Files.move(tmp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel.truncate(0);
+        if (fsync) channel.force(true);
+        entries = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) channel.close();
+    }
+
+    private void append(Entry entry) throws IOException {
+        byte[] line = writer.writeValueAsBytes(entry);
+        ByteBuffer buffer = ByteBuffer.allocate(line.length + 1).put(line).put((byte) '\n').flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        if (fsync) channel.force(false);
+        entries++;
+    }
+
+    private void read(Path file, Consumer<Note> put, Consumer<String> delete, boolean journaled) throws IOException {
+        if (!Files.exists(file)) return;
+        try (BufferedReader lines = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            long lineNumber = 0;
+            String line = lines.readLine();
+            while (line != null) {
+                lineNumber++;
+                String next = lines.readLine();
+                if (!line.isBlank()) {
+                    Entry entry;
+                    try {
+                        entry = reader.readValue(line);
+                    } catch (JsonProcessingException e) {
+                        if (journaled && next == null) break;
+                        throw new IOException("Corrupt " + file.getFileName() + " at line " + lineNumber, e);
+                    }
+                    if (Entry.DELETE.equals(entry.op())) {
+                        delete.accept(entry.id());
+                    } else {
+                        put.accept(entry.note());
+                    }
+                    if (journaled) entries++;
+                }
+                line = next;
+            }
+        }
+    }
+}
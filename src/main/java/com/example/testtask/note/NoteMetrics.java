@@ -0,0 +1,46 @@
+package com.example.testtask.note;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+@Component
+public class NoteMetrics {
+    private final DistributionSummary statsTextLength;
+    private final DistributionSummary listPageSize;
+    private final DistributionSummary cursorPageSize;
+    private final DistributionSummary searchPageSize;
+
+    public NoteMetrics(MeterRegistry registry) {
+        this.statsTextLength = DistributionSummary.builder("notes.stats.text.length")
+                .description("Length of note texts scanned for word statistics")
+                .baseUnit("characters")
+                .register(registry);
+        this.listPageSize = pageSize(registry, "list");
+        this.cursorPageSize = pageSize(registry, "cursor");
+        this.searchPageSize = pageSize(registry, "search");
+    }
+
+    public void statsComputed(String text) {
+        statsTextLength.record(text == null ? 0 : text.length());
+    }
+
+    public void listed(int pageSize) {
+        listPageSize.record(pageSize);
+    }
+
+    public void listedAfter(int pageSize) {
+        cursorPageSize.record(pageSize);
+    }
+
+    public void searched(int pageSize) {
+        searchPageSize.record(pageSize);
+    }
+
+    private static DistributionSummary pageSize(MeterRegistry registry, String operation) {
+        return DistributionSummary.builder("notes.page.size")
+                .description("Requested page size of note listings")
+                .tag("operation", operation)
+                .register(registry);
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.testtask.note;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import static org.springframework.web.reactive.function.server.RequestPredicates.contentType;
+import static org.springframework.web.reactive.function.server.RequestPredicates.queryParam;
+
+@Configuration
+@Profile("reactive")
+public class NoteRoutes {
+
+    @Bean
+    public RouterFunction<ServerResponse> noteRouterFunction(NoteHandler handler) {
+        return RouterFunctions.route()
+                .POST("/api/notes/batch", handler::createBatch)
+                .PUT("/api/notes/batch", handler::updateBatch)
+                .POST("/api/notes/batch/delete", handler::deleteBatch)
+                .POST("/api/notes/import", contentType(MediaType.APPLICATION_NDJSON), handler::importNotes)
+                .GET("/api/notes/export", handler::export)
+                .GET("/api/notes/search", handler::search)
+                .GET("/api/notes/stats", handler::aggregateStats)
+                .GET("/api/notes/tags/counts", handler::tagCounts)
+                .GET("/api/notes/events", handler::events)
+                .GET("/api/notes", queryParam("cursor", cursor -> true), handler::listByCursor)
+                .GET("/api/notes", handler::list)
+                .POST("/api/notes", handler::create)
+                .GET("/api/notes/{id}/stats/stream", handler::streamStats)
+                .GET("/api/notes/{id}/stats", handler::stats)
+                .GET("/api/notes/{id}", handler::get)
+                .PUT("/api/notes/{id}", handler::update)
+                .DELETE("/api/notes/{id}", handler::delete)
+                .build();
+    }
+}
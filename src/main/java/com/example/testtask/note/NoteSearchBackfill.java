@@ -0,0 +1,79 @@
+package com.example.testtask.note;
+
+import com.example.testtask.note.model.Note;
+import com.example.testtask.note.model.NoteSearchEntry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Component
+@Profile("!memory")
+@ConditionalOnProperty(name = "notes.search.backfill-on-startup", havingValue = "true")
+public class NoteSearchBackfill implements ApplicationRunner {
+    private final MongoTemplate mongoTemplate;
+    private final int batchSize;
+
+    @Autowired
+    public NoteSearchBackfill(MongoTemplate mongoTemplate,
+                              @Value("${notes.search.backfill-batch-size:500}") int batchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Query ids = new Query();
+        ids.fields().include("id");
+        ids.cursorBatchSize(batchSize);
+        try (Stream<Note> notes = mongoTemplate.stream(ids, Note.class)) {
+            Iterator<Note> it = notes.iterator();
+            List<String> batch = new ArrayList<>(batchSize);
+            while (it.hasNext()) {
+                batch.add(it.next().getId());
+                if (batch.size() == batchSize) {
+                    indexMissing(batch);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                indexMissing(batch);
+            }
+        }
+    }
+
+    private void indexMissing(List<String> ids) {
+        Query indexed = Query.query(Criteria.where("id").in(ids));
+        indexed.fields().include("id");
+        Set<String> existing = mongoTemplate.find(indexed, NoteSearchEntry.class).stream()
+                .map(NoteSearchEntry::getId)
+                .collect(Collectors.toSet());
+        List<String> missing = ids.stream().filter(id -> !existing.contains(id)).toList();
+        if (missing.isEmpty()) return;
+
+        List<NoteSearchEntry> entries = mongoTemplate.find(Query.query(Criteria.where("id").in(missing)), Note.class)
+                .stream()
+                .map(note -> NoteSearchIndex.entry(note, null))
+                .toList();
+        try {
+            mongoTemplate.bulkOps(BulkMode.UNORDERED, NoteSearchEntry.class).insert(entries).execute();
+        } catch (BulkOperationException e) {
+            // duplicate keys mean the entry was written by a concurrent create or update, which is newer
+        }
+    }
+}
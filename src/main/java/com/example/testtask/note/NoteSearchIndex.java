@@ -0,0 +1,151 @@
+package com.example.testtask.note;
+
+import com.example.testtask.note.model.Note;
+import com.example.testtask.note.model.NoteSearchEntry;
+import com.example.testtask.note.model.SearchTerm;
+import com.example.testtask.note.model.WordCount;
+import org.bson.Document;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Entries of the {@code note_search} collection hold each distinct {@link WordFrequencyTable} word of a note,
+ * weighted by text count plus boosted title count. Queries match notes containing every term and rank them by
+ * BM25-style saturated weight times inverse document frequency (no length normalization).
+ */
+public final class NoteSearchIndex {
+    static final int TITLE_BOOST = 3;
+    private static final double K1 = 1.2;
+
+    private NoteSearchIndex() {
+    }
+
+    public static NoteSearchEntry entry(Note note, List<WordCount> textWords) {
+        List<WordCount> words = textWords != null ? textWords : TextStatisticsUtil.wordCounts(note.getText());
+        Map<String, Integer> weights = new HashMap<>(Math.max(16, (int) (words.size() / 0.75f) + 1));
+        for (WordCount word : words) {
+            weights.put(word.word(), word.count());
+        }
+        WordFrequencyTable title = WordFrequencyTable.count(note.getTitle());
+        for (int entry = 0; entry < title.size(); entry++) {
+            weights.merge(title.word(entry), TITLE_BOOST * title.count(entry), Integer::sum);
+        }
+        List<SearchTerm> terms = new ArrayList<>(weights.size());
+        weights.forEach((term, weight) -> terms.add(new SearchTerm(term, weight)));
+        return NoteSearchEntry.builder()
+                .id(note.getId())
+                .title(note.getTitle())
+                .createdDate(note.getCreatedDate())
+                .tags(note.getTags())
+                .terms(terms)
+                .build();
+    }
+
+    public static List<String> queryTerms(String query, int maxTerms) {
+        WordFrequencyTable table = WordFrequencyTable.count(query);
+        if (table.size() == 0 || table.size() > maxTerms) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Search query must contain between 1 and " + maxTerms + " distinct words.");
+        }
+        List<String> terms = new ArrayList<>(table.size());
+        for (int entry = 0; entry < table.size(); entry++) {
+            terms.add(table.word(entry));
+        }
+        return terms;
+    }
+
+    static double idf(long total, long documentFrequency) {
+        return Math.log(1 + (total - documentFrequency + 0.5) / (documentFrequency + 0.5));
+    }
+
+    static Map<String, Double> idf(long total, Map<String, Long> documentFrequencies) {
+        Map<String, Double> idf = new HashMap<>();
+        documentFrequencies.forEach((term, frequency) -> idf.put(term, idf(total, frequency)));
+        return idf;
+    }
+
+    /**
+     * Terms ordered by ascending document frequency: the index scan of {@code $all} starts from the first term,
+     * so leading with the rarest one reads the fewest entries.
+     */
+    static List<String> rarestFirst(Map<String, Long> documentFrequencies) {
+        return documentFrequencies.entrySet().stream()
+                .sorted(Map.Entry.comparingByValue())
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    static double saturated(int weight) {
+        return weight * (K1 + 1) / (weight + K1);
+    }
+
+    static Query termQuery(String term) {
+        return Query.query(Criteria.where("terms.term").is(term));
+    }
+
+    static Criteria matching(List<String> terms, TagFilter tags) {
+        Criteria criteria = Criteria.where("terms.term").all(terms);
+        if (!tags.isEmpty()) {
+            criteria = tags.all() ? criteria.and("tags").all(tags.tags()) : criteria.and("tags").in(tags.tags());
+        }
+        return criteria;
+    }
+
+    /**
+     * Whether a page already tells the total: it is short and not past the end, so no count is needed.
+     */
+    static boolean lastPage(List<?> content, Pageable pageable) {
+        return content.size() < pageable.getPageSize() && (pageable.getOffset() == 0 || !content.isEmpty());
+    }
+
+    /**
+     * Scores every matching entry; the sort is followed by skip and limit, so the server keeps only the top
+     * {@code offset + size} entries while sorting instead of all matches.
+     */
+    static Aggregation rankedPage(Criteria matching, Map<String, Double> idf, Pageable pageable) {
+        Object termIdf = 0;
+        for (Map.Entry<String, Double> term : idf.entrySet()) {
+            termIdf = new Document("$cond", List.of(
+                    new Document("$eq", List.of("$$t.term", term.getKey())), term.getValue(), termIdf));
+        }
+        Document saturated = new Document("$divide", List.of(
+                new Document("$multiply", List.of("$$t.weight", K1 + 1)),
+                new Document("$add", List.of("$$t.weight", K1))));
+        Document score = new Document("$sum", new Document("$map", new Document()
+                .append("input", new Document("$filter", new Document()
+                        .append("input", "$terms")
+                        .append("as", "t")
+                        .append("cond", new Document("$in", List.of("$$t.term", new ArrayList<>(idf.keySet()))))))
+                .append("as", "t")
+                .append("in", new Document("$multiply", List.of(
+                        termIdf,
+                        saturated)))));
+        AggregationOperation ranked = context -> new Document("$project", new Document()
+                .append("title", 1)
+                .append("createdDate", 1)
+                .append("tags", 1)
+                .append("score", score));
+        AggregationOperation byScore = context -> new Document("$sort", new Document()
+                .append("score", -1)
+                .append("createdDate", -1)
+                .append("_id", -1));
+        return Aggregation.newAggregation(
+                        Aggregation.match(matching),
+                        ranked,
+                        byScore,
+                        Aggregation.skip(pageable.getOffset()),
+                        Aggregation.limit(pageable.getPageSize()))
+                .withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+    }
+}
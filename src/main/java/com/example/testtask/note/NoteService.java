@@ -1,19 +1,35 @@
 package com.example.testtask.note;
 
 import com.example.testtask.note.dto.CreateNoteRequest;
+import com.example.testtask.note.dto.NoteListItemDto;
+import com.example.testtask.note.dto.NoteSearchResultDto;
+import com.example.testtask.note.dto.NoteVersion;
 import com.example.testtask.note.dto.UpdateNoteRequest;
 import com.example.testtask.note.model.Note;
+import com.example.testtask.note.model.WordCount;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 public interface NoteService {
     Note create(CreateNoteRequest req);
     Note update(String id, UpdateNoteRequest req);
+    Note update(String id, UpdateNoteRequest req, Long expectedVersion);
     void delete(String id);
     Note get(String id);
-    Page<Note> list(List<String> tagStrings, Pageable pageable);
+    NoteVersion version(String id);
+    Page<NoteListItemDto> list(TagFilter tags, Pageable pageable);
+    Slice<NoteListItemDto> listAfter(TagFilter tags, NoteCursor cursor, int size);
+    Stream<Note> export(TagFilter tags);
+    Page<NoteSearchResultDto> search(String query, TagFilter tags, Pageable pageable);
+    Map<String, Long> tagCounts();
     Map<String, Integer> stats(String id);
+    Map<String, Integer> stats(String id, int limit, int minCount);
+    Stream<WordCount> streamStats(String id, int limit, int minCount);
+    Map<String, Long> aggregateStats(String tag, LocalDate from, LocalDate to, int limit, int minCount);
 }
@@ -1,91 +1,429 @@
 package com.example.testtask.note;
 
 import com.example.testtask.note.dto.CreateNoteRequest;
+import com.example.testtask.note.dto.NoteListItemDto;
+import com.example.testtask.note.dto.NoteSearchResultDto;
+import com.example.testtask.note.dto.NoteVersion;
 import com.example.testtask.note.dto.UpdateNoteRequest;
 import com.example.testtask.note.model.Note;
+import com.example.testtask.note.model.NoteSearchEntry;
+import com.example.testtask.note.model.NoteStats;
 import com.example.testtask.note.model.Tag;
+import com.example.testtask.note.model.TagCount;
+import com.example.testtask.note.model.WordCount;
+import com.example.testtask.note.model.WordCounter;
+import io.micrometer.core.annotation.Timed;
+import org.bson.Document;
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.data.util.Pair;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Service
+@Profile("!memory")
+@Timed("notes.service")
 public class NoteServiceImpl implements NoteService {
     private final NoteRepository repo;
+    private final NoteStatsRepository statsRepo;
+    private final MongoTemplate mongoTemplate;
+    private final NoteCache cache;
+    private final NoteMetrics metrics;
+    private final NoteWriteBehind writeBehind;
+    private final NoteEvents events;
+    private final int exportBatchSize;
+    private final int searchMaxTerms;
+    private final int aggregatesMaxDays;
     private static final String NOTE_NOT_FOUND = "Note not found";
+    static final String NOTE_MODIFIED = "Note was modified by another request";
 
     @Autowired
-    public NoteServiceImpl(NoteRepository repo) { this.repo = repo; }
+    public NoteServiceImpl(NoteRepository repo, NoteStatsRepository statsRepo, MongoTemplate mongoTemplate,
+                           NoteCache cache, NoteMetrics metrics, NoteWriteBehind writeBehind,
+                           NoteEvents events,
+                           @Value("${notes.export.batch-size:500}") int exportBatchSize,
+                           @Value("${notes.search.max-terms:10}") int searchMaxTerms,
+                           @Value("${notes.aggregates.max-days:366}") int aggregatesMaxDays) {
+        this.repo = repo;
+        this.statsRepo = statsRepo;
+        this.mongoTemplate = mongoTemplate;
+        this.cache = cache;
+        this.metrics = metrics;
+        this.writeBehind = writeBehind;
+        this.events = events;
+        this.exportBatchSize = exportBatchSize;
+        this.searchMaxTerms = searchMaxTerms;
+        this.aggregatesMaxDays = aggregatesMaxDays;
+    }
 
     @Override
     public Note create(CreateNoteRequest req) {
         List<Tag> tags = convertTags(req.tags());
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
         Note note = Note.builder()
                 .title(req.title())
-                .createdDate(Instant.now())
+                .createdDate(now)
                 .text(req.text())
                 .tags(tags)
                 .build();
-        return repo.save(note);
+        if (writeBehind.enabled()) {
+            return writeBehind.submit(note.toBuilder()
+                    .id(new ObjectId().toHexString())
+                    .version(0L)
+                    .lastModifiedDate(now)
+                    .build());
+        }
+        Note saved = repo.save(note);
+        NoteStats stats = saveStats(saved);
+        mongoTemplate.save(NoteSearchIndex.entry(saved, stats.getWords()));
+        WordCountBuckets.Delta delta = new WordCountBuckets.Delta();
+        delta.add(saved, stats.getWords());
+        applyDelta(delta);
+        cache.put(saved);
+        events.created(saved);
+        return saved;
     }
 
     @Override
     public Note update(String id, UpdateNoteRequest req) {
-        Note note = repo.findById(id)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, NOTE_NOT_FOUND));
-        note.setTitle(req.title());
-        note.setText(req.text());
-        note.setTags(convertTags(req.tags()));
-        return repo.save(note);
+        return update(id, req, null);
+    }
+
+    @Override
+    public Note update(String id, UpdateNoteRequest req, Long expectedVersion) {
+        List<Tag> tags = convertTags(req.tags());
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        writeBehind.awaitWritten(id);
+        Note current = mongoTemplate.findAndModify(versionedQuery(id, expectedVersion),
+                modification(req.title(), req.text(), tags, now), Note.class);
+        // concurrent updates may return in another order than they were written, so the next read reloads
+        cache.evict(id);
+        if (current == null) {
+            if (expectedVersion != null && mongoTemplate.exists(Query.query(Criteria.where("id").is(id)), Note.class)) {
+                throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, NOTE_MODIFIED);
+            }
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, NOTE_NOT_FOUND);
+        }
+        Note saved = modified(current, req.title(), req.text(), tags, now);
+        String hash = textHash(saved.getText());
+        Optional<NoteStats> stats = statsRepo.findTextHashById(id);
+        boolean textChanged = stats.isEmpty() || !hash.equals(stats.get().getTextHash());
+        boolean tagsChanged = !Objects.equals(current.getTags(), saved.getTags());
+        List<WordCount> words = textChanged ? saveStats(saved).getWords() : null;
+        if (textChanged || tagsChanged) {
+            if (words == null) {
+                words = TextStatisticsUtil.wordCounts(saved.getText());
+            }
+            WordCountBuckets.Delta delta = new WordCountBuckets.Delta();
+            delta.remove(current, textChanged ? TextStatisticsUtil.wordCounts(current.getText()) : words);
+            delta.add(saved, words);
+            applyDelta(delta);
+        }
+        mongoTemplate.save(NoteSearchIndex.entry(saved, words));
+        events.updated(saved);
+        return saved;
     }
 
     @Override
     public void delete(String id) {
-        Note noteToDelete = repo.findById(id)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, NOTE_NOT_FOUND));
-        repo.delete(noteToDelete);
+        writeBehind.awaitWritten(id);
+        Note noteToDelete = mongoTemplate.findAndRemove(Query.query(Criteria.where("id").is(id)), Note.class);
+        cache.evict(id);
+        if (noteToDelete == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, NOTE_NOT_FOUND);
+        }
+        statsRepo.deleteById(id);
+        mongoTemplate.remove(Query.query(Criteria.where("id").is(id)), NoteSearchEntry.class);
+        WordCountBuckets.Delta delta = new WordCountBuckets.Delta();
+        delta.remove(noteToDelete, TextStatisticsUtil.wordCounts(noteToDelete.getText()));
+        applyDelta(delta);
+        events.deleted(noteToDelete);
     }
 
     @Override
     public Note get(String id) {
-        return repo.findById(id)
-            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, NOTE_NOT_FOUND));
+        Note pending = writeBehind.pending(id);
+        if (pending != null) return pending;
+        Note note = cache.get(id, key -> repo.findById(key).orElse(null));
+        if (note == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, NOTE_NOT_FOUND);
+        }
+        return note;
+    }
+
+    @Override
+    public NoteVersion version(String id) {
+        Note cached = writeBehind.pending(id);
+        if (cached == null) cached = cache.getIfPresent(id);
+        if (cached != null) return NoteVersion.of(cached);
+        Note note = mongoTemplate.findOne(versionQuery(id), Note.class);
+        if (note == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, NOTE_NOT_FOUND);
+        }
+        return NoteVersion.of(note);
+    }
+
+    static Query versionQuery(String id) {
+        Query query = Query.query(Criteria.where("id").is(id));
+        query.fields().include("createdDate", "version", "lastModifiedDate");
+        return query;
+    }
+
+    /**
+     * Matches the note, and with an expected version only that version of it; notes written before
+     * versioning have no version field and count as version 0.
+     */
+    static Query versionedQuery(String id, Long expectedVersion) {
+        Criteria criteria = Criteria.where("id").is(id);
+        if (expectedVersion != null && expectedVersion == 0) {
+            criteria.orOperator(Criteria.where("version").is(0L), Criteria.where("version").exists(false));
+        } else if (expectedVersion != null) {
+            criteria.and("version").is(expectedVersion);
+        }
+        return Query.query(criteria);
+    }
+
+    static Update modification(String title, String text, List<Tag> tags, Instant now) {
+        return new Update()
+                .set("title", title)
+                .set("text", text)
+                .set("tags", tags)
+                .set("lastModifiedDate", now)
+                .inc("version", 1);
+    }
+
+    static Note modified(Note current, String title, String text, List<Tag> tags, Instant now) {
+        return current.toBuilder()
+                .title(title)
+                .text(text)
+                .tags(tags)
+                .version((current.getVersion() == null ? 0 : current.getVersion()) + 1)
+                .lastModifiedDate(now)
+                .build();
+    }
+
+    @Override
+    public Page<NoteListItemDto> list(TagFilter tags, Pageable pageable) {
+        metrics.listed(pageable.getPageSize());
+        if (tags.isEmpty()) {
+            return repo.findListItemsBy(pageable);
+        }
+        return repo.findListItemsByTagMasks(tags.masks(), pageable);
+    }
+
+    @Override
+    public Slice<NoteListItemDto> listAfter(TagFilter tags, NoteCursor cursor, int size) {
+        if (size < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Page size must be >= 1.");
+        }
+        metrics.listedAfter(size);
+        Query query = keysetQuery(tags, cursor, size + 1);
+        List<NoteListItemDto> notes = mongoTemplate.query(Note.class)
+                .as(NoteListItemDto.class)
+                .matching(query)
+                .all();
+        boolean hasNext = notes.size() > size;
+        List<NoteListItemDto> content = hasNext ? notes.subList(0, size) : notes;
+        return new SliceImpl<>(content, PageRequest.of(0, size), hasNext);
+    }
+
+    @Override
+    public Stream<Note> export(TagFilter tags) {
+        Query query = tags.isEmpty() ? new Query() : Query.query(tags.criteria());
+        query.cursorBatchSize(exportBatchSize);
+        return mongoTemplate.stream(query, Note.class);
+    }
+
+    @Override
+    public Page<NoteSearchResultDto> search(String query, TagFilter tags, Pageable pageable) {
+        metrics.searched(pageable.getPageSize());
+        List<String> terms = NoteSearchIndex.queryTerms(query, searchMaxTerms);
+        Map<String, Long> frequencies = new HashMap<>();
+        for (String term : terms) {
+            long documentFrequency = mongoTemplate.count(NoteSearchIndex.termQuery(term), NoteSearchEntry.class);
+            if (documentFrequency == 0) {
+                return new PageImpl<>(List.of(), pageable, 0);
+            }
+            frequencies.put(term, documentFrequency);
+        }
+        Map<String, Double> idf = NoteSearchIndex.idf(mongoTemplate.estimatedCount(NoteSearchEntry.class), frequencies);
+        Criteria matching = NoteSearchIndex.matching(NoteSearchIndex.rarestFirst(frequencies), tags);
+        List<NoteSearchResultDto> content = mongoTemplate.aggregate(
+                NoteSearchIndex.rankedPage(matching, idf, pageable),
+                NoteSearchEntry.class, NoteSearchResultDto.class).getMappedResults();
+        return PageableExecutionUtils.getPage(content, pageable,
+                () -> mongoTemplate.count(Query.query(matching), NoteSearchEntry.class));
+    }
+
+    static Query keysetQuery(TagFilter tags, NoteCursor cursor, int limit) {
+        List<Criteria> criteria = new ArrayList<>();
+        if (!tags.isEmpty()) {
+            criteria.add(tags.criteria());
+        }
+        if (cursor != null) {
+            criteria.add(new Criteria().orOperator(
+                    Criteria.where("createdDate").lt(cursor.createdDate()),
+                    new Criteria().andOperator(
+                            Criteria.where("createdDate").is(cursor.createdDate()),
+                            Criteria.where("id").lt(cursor.id()))));
+        }
+        Query query = criteria.isEmpty()
+                ? new Query()
+                : Query.query(new Criteria().andOperator(criteria));
+        return query.with(Sort.by(Sort.Direction.DESC, "createdDate", "id")).limit(limit);
     }
 
     @Override
-    public Page<Note> list(List<String> tagStrings, Pageable pageable) {
-        if (tagStrings == null || tagStrings.isEmpty()) {
-            return repo.findAll(pageable);
+    public Map<String, Long> tagCounts() {
+        return tagCounts(mongoTemplate.findAll(TagCount.class));
+    }
+
+    static Map<String, Long> tagCounts(List<TagCount> counts) {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (Tag tag : Tag.values()) {
+            result.put(tag.name(), 0L);
         }
-        List<Tag> tags = convertTags(tagStrings);
-        return repo.findByTagsIn(tags, pageable);
+        counts.forEach(count -> result.computeIfPresent(count.getId(), (tag, zero) -> count.getCount()));
+        return result;
     }
 
     @Override
     public Map<String, Integer> stats(String id) {
-        Note note = get(id);
-        return TextStatisticsUtil.wordFrequencies(note.getText());
-    }
-
-    private List<Tag> convertTags(List<String> tags) {
-        if (tags == null) return List.of();
-        return tags.stream()
-                .map(String::toUpperCase)
-                .map(s -> {
-                    try {
-                        return Tag.valueOf(s);
-                    } catch (IllegalArgumentException e) {
-                        throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
-                                "Invalid tag provided: '" + s + "'. Allowed tags are: BUSINESS, PERSONAL, IMPORTANT.");
-                    }
-                })
-                .toList();
+        return stats(id, 0, 1);
+    }
+
+    @Override
+    public Map<String, Integer> stats(String id, int limit, int minCount) {
+        checkStatsParams(limit, minCount);
+        Query query = Query.query(Criteria.where("id").is(id));
+        if (limit > 0) {
+            query.fields().slice("words", limit);
+        }
+        NoteStats stats = mongoTemplate.findOne(query, NoteStats.class);
+        if (stats == null) {
+            stats = saveStats(get(id));
+        }
+        List<WordCount> words = stats.getWords();
+        if (limit > 0 && words.size() > limit) {
+            words = words.subList(0, limit);
+        }
+        return TextStatisticsUtil.toFrequencyMap(words, minCount);
+    }
+
+    @Override
+    public Stream<WordCount> streamStats(String id, int limit, int minCount) {
+        checkStatsParams(limit, minCount);
+        if (!statsRepo.existsById(id)) {
+            saveStats(get(id));
+        }
+        List<AggregationOperation> pipeline = new ArrayList<>();
+        pipeline.add(Aggregation.match(Criteria.where("id").is(id)));
+        pipeline.add(Aggregation.unwind("words"));
+        pipeline.add(Aggregation.match(Criteria.where("words.count").gte(minCount)));
+        if (limit > 0) {
+            pipeline.add(Aggregation.limit(limit));
+        }
+        pipeline.add(Aggregation.replaceRoot("words"));
+        return mongoTemplate.aggregateStream(Aggregation.newAggregation(NoteStats.class, pipeline), WordCount.class);
+    }
+
+    @Override
+    public Map<String, Long> aggregateStats(String tag, LocalDate from, LocalDate to, int limit, int minCount) {
+        checkStatsParams(limit, minCount);
+        TypedAggregation<WordCounter> top = WordCountBuckets.top(WordCountBuckets.bucketTag(tag), from, to, aggregatesMaxDays, limit, minCount);
+        Map<String, Long> result = new LinkedHashMap<>();
+        mongoTemplate.aggregate(top, Document.class).forEach(total -> WordCountBuckets.collect(result, total));
+        return result;
+    }
+
+    private void applyDelta(WordCountBuckets.Delta delta) {
+        List<Pair<Query, Update>> updates = delta.updates();
+        if (!updates.isEmpty()) {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, WordCounter.class).upsert(updates).execute();
+        }
+        List<Pair<Query, Update>> tagCounts = delta.tagCountUpdates();
+        if (!tagCounts.isEmpty()) {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, TagCount.class).upsert(tagCounts).execute();
+        }
+    }
+
+    static void checkStatsParams(int limit, int minCount) {
+        if (limit < 0 || minCount < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Invalid stats parameters: limit must be >= 0 and minCount must be >= 1.");
+        }
+    }
+
+    private NoteStats saveStats(Note note) {
+        metrics.statsComputed(note.getText());
+        return statsRepo.save(buildStats(note));
+    }
+
+    static NoteStats buildStats(Note note) {
+        return NoteStats.builder()
+                .id(note.getId())
+                .textHash(textHash(note.getText()))
+                .words(TextStatisticsUtil.wordCounts(note.getText()))
+                .build();
+    }
+
+    static String textHash(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest((text == null ? "" : text).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static List<Tag> convertTags(List<String> tags) {
+        if (tags == null || tags.isEmpty()) return List.of();
+        int mask = 0;
+        for (String name : tags) {
+            Tag tag = NoteTagCodec.parse(name);
+            if (tag == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid tag provided: '"
+                        + String.valueOf(name).toUpperCase() + "'. Allowed tags are: BUSINESS, PERSONAL, IMPORTANT.");
+            }
+            mask |= NoteTagCodec.bit(tag);
+        }
+        return NoteTagCodec.tags(mask);
     }
 
 }
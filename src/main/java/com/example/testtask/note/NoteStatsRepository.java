@@ -0,0 +1,12 @@
+package com.example.testtask.note;
+
+import com.example.testtask.note.model.NoteStats;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+
+import java.util.Optional;
+
+public interface NoteStatsRepository extends MongoRepository<NoteStats, String> {
+    @Query(value = "{ '_id': ?0 }", fields = "{ 'textHash': 1 }")
+    Optional<NoteStats> findTextHashById(String id);
+}
@@ -0,0 +1,28 @@
+package com.example.testtask.note;
+
+import com.example.testtask.note.model.Note;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+
+import java.util.zip.Deflater;
+
+@Configuration
+public class NoteStorageConfig {
+
+    @Bean
+    public NoteTextCodec noteTextCodec(@Value("${notes.text.compression.enabled:false}") boolean enabled,
+                                       @Value("${notes.text.compression.threshold:4096}") int threshold,
+                                       @Value("${notes.text.compression.level:" + Deflater.BEST_SPEED + "}") int level) {
+        return new NoteTextCodec(enabled, threshold, level);
+    }
+
+    @Bean
+    public MongoCustomConversions mongoCustomConversions(NoteTextCodec codec) {
+        NoteTagCodec tagCodec = new NoteTagCodec();
+        return MongoCustomConversions.create(adapter -> adapter.configurePropertyConversions(registrar -> registrar
+                .registerConverter(Note.class, "text", codec)
+                .registerConverter(Note.class, "tags", tagCodec)));
+    }
+}
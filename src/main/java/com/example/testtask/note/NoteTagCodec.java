@@ -0,0 +1,96 @@
+package com.example.testtask.note;
+
+import com.example.testtask.note.model.Tag;
+import org.springframework.data.mongodb.core.convert.MongoConversionContext;
+import org.springframework.data.mongodb.core.convert.MongoValueConverter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Stores note tags as an int bitmask with bit {@code ordinal()} set for each tag. With three tags there are
+ * only eight masks, so "any of" and "all of" filters become an {@code $in} over the masks they accept and use
+ * the tags index like an equality match. Arrays of tag names written before the bitmask are still read.
+ */
+public class NoteTagCodec implements MongoValueConverter<Object, Object> {
+    private static final Tag[] TAGS = Tag.values();
+    static final int MASKS = 1 << TAGS.length;
+    private static final Map<String, Tag> BY_NAME = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    private static final List<List<Tag>> BY_MASK = new ArrayList<>(MASKS);
+
+    static {
+        for (Tag tag : TAGS) {
+            BY_NAME.put(tag.name(), tag);
+        }
+        for (int mask = 0; mask < MASKS; mask++) {
+            List<Tag> tags = new ArrayList<>();
+            for (Tag tag : TAGS) {
+                if ((mask & bit(tag)) != 0) tags.add(tag);
+            }
+            BY_MASK.add(List.copyOf(tags));
+        }
+    }
+
+    @Override
+    public Object read(Object value, MongoConversionContext context) {
+        return decode(value);
+    }
+
+    /**
+     * Encodes a tag list; collections of masks, as used by query operators, are already encoded and are
+     * passed through unchanged.
+     */
+    @Override
+    public Object write(Object value, MongoConversionContext context) {
+        if (value instanceof Collection<?> values && values.stream().allMatch(Tag.class::isInstance)) {
+            int mask = 0;
+            for (Object tag : values) mask |= bit((Tag) tag);
+            return mask;
+        }
+        return value;
+    }
+
+    static List<Tag> decode(Object stored) {
+        if (stored instanceof Number mask) {
+            return tags(mask.intValue());
+        }
+        if (stored instanceof Collection<?> names) {
+            int mask = 0;
+            for (Object name : names) {
+                Tag tag = parse(String.valueOf(name));
+                if (tag != null) mask |= bit(tag);
+            }
+            return tags(mask);
+        }
+        return List.of();
+    }
+
+    static Tag parse(String name) {
+        return name == null ? null : BY_NAME.get(name);
+    }
+
+    static int bit(Tag tag) {
+        return 1 << tag.ordinal();
+    }
+
+    static int mask(Collection<Tag> tags) {
+        int mask = 0;
+        for (Tag tag : tags) mask |= bit(tag);
+        return mask;
+    }
+
+    static List<Tag> tags(int mask) {
+        return BY_MASK.get(mask & (MASKS - 1));
+    }
+
+    static List<Integer> matching(int mask, boolean all) {
+        List<Integer> masks = new ArrayList<>();
+        for (int candidate = 0; candidate < MASKS; candidate++) {
+            if (all ? (candidate & mask) == mask : (candidate & mask) != 0) masks.add(candidate);
+        }
+        return masks;
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.testtask.note;
+
+import com.example.testtask.note.model.Tag;
+import com.example.testtask.note.model.TagCount;
+import org.bson.Document;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Rewrites tag name arrays stored before tags were encoded as a bitmask, and recomputes {@code tag_counts}
+ * when it rewrote anything or the counters were never written. Tag filters only match migrated notes, so it
+ * runs by default, before the web server accepts requests. Each update is conditional on the stored array so a
+ * concurrent edit by another instance is kept; both steps are idempotent.
+ */
+@Component
+@Profile("!memory")
+@ConditionalOnProperty(name = "notes.tags.migrate-on-startup", havingValue = "true", matchIfMissing = true)
+public class NoteTagMigration implements SmartInitializingSingleton {
+    private static final String COLLECTION = "notes";
+    private static final int BSON_ARRAY = 4;
+
+    private final MongoTemplate mongoTemplate;
+    private final int batchSize;
+
+    @Autowired
+    public NoteTagMigration(MongoTemplate mongoTemplate,
+                            @Value("${notes.tags.migrate-batch-size:500}") int batchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        migrate();
+    }
+
+    public long migrate() {
+        long rewritten = rewrite();
+        if (rewritten > 0 || !mongoTemplate.exists(new Query(), TagCount.class)) {
+            rebuildCounts();
+        }
+        return rewritten;
+    }
+
+    private long rewrite() {
+        Query candidates = Query.query(Criteria.where("tags").type(BSON_ARRAY));
+        candidates.fields().include("_id", "tags");
+        candidates.cursorBatchSize(batchSize);
+        long rewritten = 0;
+        try (Stream<Document> documents = mongoTemplate.stream(candidates, Document.class, COLLECTION)) {
+            Iterator<Document> it = documents.iterator();
+            BulkOperations ops = mongoTemplate.bulkOps(BulkMode.UNORDERED, COLLECTION);
+            int pending = 0;
+            while (it.hasNext()) {
+                Document document = it.next();
+                Object stored = document.get("tags");
+                ops.updateOne(Query.query(Criteria.where("_id").is(document.get("_id")).and("tags").is(stored)),
+                        Update.update("tags", NoteTagCodec.mask(NoteTagCodec.decode(stored))));
+                if (++pending == batchSize) {
+                    rewritten += ops.execute().getModifiedCount();
+                    ops = mongoTemplate.bulkOps(BulkMode.UNORDERED, COLLECTION);
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                rewritten += ops.execute().getModifiedCount();
+            }
+        }
+        return rewritten;
+    }
+
+    private void rebuildCounts() {
+        long[] counts = new long[Tag.values().length];
+        Aggregation byMask = Aggregation.newAggregation(Aggregation.group("tags").count().as("count"));
+        for (Document group : mongoTemplate.aggregate(byMask, COLLECTION, Document.class)) {
+            if (!(group.get("_id") instanceof Number mask)) continue;
+            long notes = group.get("count", Number.class).longValue();
+            NoteTagCodec.tags(mask.intValue()).forEach(tag -> counts[tag.ordinal()] += notes);
+        }
+        BulkOperations ops = mongoTemplate.bulkOps(BulkMode.UNORDERED, TagCount.class);
+        for (Tag tag : Tag.values()) {
+            ops.upsert(Query.query(Criteria.where("id").is(tag.name())), Update.update("count", counts[tag.ordinal()]));
+        }
+        ops.execute();
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.testtask.note;
+
+import org.bson.BsonBinarySubType;
+import org.bson.types.Binary;
+import org.springframework.data.mongodb.core.convert.MongoConversionContext;
+import org.springframework.data.mongodb.core.convert.MongoValueConverter;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Stores {@code Note.text} above a length threshold as a Deflate-compressed {@link Binary}
+ * (4-byte UTF-8 length followed by the raw deflate stream). Both forms are always readable, so
+ * compression can be switched on and off without rewriting existing documents.
+ */
+public class NoteTextCodec implements MongoValueConverter<String, Object> {
+    static final byte SUBTYPE = BsonBinarySubType.USER_DEFINED.getValue();
+
+    private final boolean enabled;
+    private final int threshold;
+    private final int level;
+
+    public NoteTextCodec(boolean enabled, int threshold, int level) {
+        this.enabled = enabled;
+        this.threshold = threshold;
+        this.level = level;
+    }
+
+    @Override
+    public String read(Object value, MongoConversionContext context) {
+        return decode(value);
+    }
+
+    @Override
+    public Object write(String value, MongoConversionContext context) {
+        return encode(value);
+    }
+
+    public Object encode(String text) {
+        if (!enabled || text == null || text.length() < threshold) return text;
+        byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+        Deflater deflater = new Deflater(level, true);
+        try {
+            deflater.setInput(utf8);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(utf8.length / 4 + 16);
+            out.writeBytes(ByteBuffer.allocate(4).putInt(utf8.length).array());
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+                if (out.size() >= utf8.length) return text;
+            }
+            return new Binary(SUBTYPE, out.toByteArray());
+        } finally {
+            deflater.end();
+        }
+    }
+
+    public static String decode(Object stored) {
+        if (!(stored instanceof Binary binary)) return (String) stored;
+        byte[] data = binary.getData();
+        byte[] utf8 = new byte[ByteBuffer.wrap(data, 0, 4).getInt()];
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(data, 4, data.length - 4);
+            int read = 0;
+            while (read < utf8.length) {
+                int n = inflater.inflate(utf8, read, utf8.length - read);
+                if (n == 0 && (inflater.finished() || inflater.needsInput())) break;
+                read += n;
+            }
+            if (read != utf8.length) {
+                throw new IllegalStateException("Compressed note text is truncated");
+            }
+            return new String(utf8, StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Compressed note text is corrupt", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
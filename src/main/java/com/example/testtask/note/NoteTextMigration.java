@@ -0,0 +1,83 @@
+package com.example.testtask.note;
+
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Rewrites stored note texts into the form the current compression settings would write:
+ * compresses long plain texts when compression is enabled and restores plain strings when it
+ * is disabled. Documents are read and written raw, and each update is conditional on the stored
+ * value so a concurrent edit is never overwritten.
+ */
+@Component
+@Profile("!memory")
+@ConditionalOnProperty(name = "notes.text.compression.migrate-on-startup", havingValue = "true")
+public class NoteTextMigration implements ApplicationRunner {
+    private static final String COLLECTION = "notes";
+    private static final int BSON_STRING = 2;
+    private static final int BSON_BINARY = 5;
+
+    private final MongoTemplate mongoTemplate;
+    private final NoteTextCodec codec;
+    private final boolean compress;
+    private final int batchSize;
+
+    @Autowired
+    public NoteTextMigration(MongoTemplate mongoTemplate, NoteTextCodec codec,
+                             @Value("${notes.text.compression.enabled:false}") boolean compress,
+                             @Value("${notes.text.compression.migrate-batch-size:500}") int batchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.codec = codec;
+        this.compress = compress;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        migrate();
+    }
+
+    public long migrate() {
+        Query candidates = Query.query(Criteria.where("text").type(compress ? BSON_STRING : BSON_BINARY));
+        candidates.fields().include("_id", "text");
+        candidates.cursorBatchSize(batchSize);
+        long rewritten = 0;
+        try (Stream<Document> documents = mongoTemplate.stream(candidates, Document.class, COLLECTION)) {
+            Iterator<Document> it = documents.iterator();
+            BulkOperations ops = mongoTemplate.bulkOps(BulkMode.UNORDERED, COLLECTION);
+            int pending = 0;
+            while (it.hasNext()) {
+                Document document = it.next();
+                Object stored = document.get("text");
+                Object encoded = codec.encode(NoteTextCodec.decode(stored));
+                if (encoded == null || encoded.getClass() == stored.getClass()) continue;
+                ops.updateOne(Query.query(Criteria.where("_id").is(document.get("_id")).and("text").is(stored)),
+                        Update.update("text", encoded));
+                if (++pending == batchSize) {
+                    rewritten += ops.execute().getModifiedCount();
+                    ops = mongoTemplate.bulkOps(BulkMode.UNORDERED, COLLECTION);
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                rewritten += ops.execute().getModifiedCount();
+            }
+        }
+        return rewritten;
+    }
+}
@@ -0,0 +1,197 @@
+package com.example.testtask.note;
+
+import com.example.testtask.note.model.Note;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Opt-in write-behind for single note creates. A created note is queued and visible through {@link #pending}
+ * until a flusher thread writes it with the next {@code insertMany} batch, which closes when it is full or
+ * {@code max-delay} after its first note. A full queue rejects creates with 429. With {@code wait-for-ack} the
+ * request returns only once its batch is acknowledged, or fails with 503 when the note is still queued after
+ * {@code ack-timeout} and is withdrawn; otherwise a failed batch is lost to the client.
+ */
+@Component
+@Profile("!memory")
+public class NoteWriteBehind {
+    private final NoteBatchServiceImpl batchService;
+    private final NoteCache cache;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long maxDelayNanos;
+    private final boolean waitForAck;
+    private final long ackTimeoutNanos;
+    private final BlockingQueue<Pending> queue;
+    private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+    private final DistributionSummary batchSizes;
+    private volatile boolean running;
+    private Thread flusher;
+
+    @Autowired
+    public NoteWriteBehind(NoteBatchServiceImpl batchService, NoteCache cache, MeterRegistry registry,
+                           @Value("${notes.create.write-behind.enabled:false}") boolean enabled,
+                           @Value("${notes.create.write-behind.queue-capacity:10000}") int queueCapacity,
+                           @Value("${notes.create.write-behind.batch-size:500}") int batchSize,
+                           @Value("${notes.create.write-behind.max-delay:20ms}") Duration maxDelay,
+                           @Value("${notes.create.write-behind.wait-for-ack:false}") boolean waitForAck,
+                           @Value("${notes.create.write-behind.ack-timeout:5s}") Duration ackTimeout) {
+        this.batchService = batchService;
+        this.cache = cache;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.waitForAck = waitForAck;
+        this.ackTimeoutNanos = ackTimeout.toNanos();
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        Gauge.builder("notes.create.pending", pending, Map::size)
+                .description("Created notes waiting to be written")
+                .register(registry);
+        this.batchSizes = DistributionSummary.builder("notes.create.batch.size")
+                .description("Notes written per write-behind insert")
+                .register(registry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) return;
+        running = true;
+        flusher = Thread.ofPlatform().name("note-write-behind").daemon().start(this::run);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (flusher == null) return;
+        running = false;
+        flusher.join();
+    }
+
+    public boolean enabled() {
+        return enabled;
+    }
+
+    public Note submit(Note note) {
+        Pending entry = new Pending(note, new CompletableFuture<>());
+        pending.put(note.getId(), entry);
+        if (!queue.offer(entry)) {
+            pending.remove(note.getId());
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Too many pending creates, retry later.");
+        }
+        if (waitForAck) {
+            awaitAck(entry);
+        }
+        return note;
+    }
+
+    private void awaitAck(Pending entry) {
+        try {
+            try {
+                entry.written().get(ackTimeoutNanos, TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                if (queue.remove(entry)) {
+                    pending.remove(entry.note().getId());
+                    throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                            "Note could not be stored in time, retry later.");
+                }
+                // the flusher is writing it already; answering now could make the client create it twice
+                entry.written().get();
+            }
+        } catch (ExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Note could not be stored.", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Note could not be stored.", e);
+        }
+    }
+
+    public Note pending(String id) {
+        Pending entry = pending.get(id);
+        return entry == null ? null : entry.note();
+    }
+
+    /**
+     * Blocks until a pending note with this id has been written, so updates and deletes find it in Mongo.
+     */
+    public void awaitWritten(String id) {
+        Pending entry = pending.get(id);
+        if (entry != null) {
+            entry.written().exceptionally(e -> null).join();
+        }
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (batch.size() < batchSize) {
+                    Pending next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                queue.drainTo(batch);
+                flush(batch);
+                Thread.currentThread().interrupt();
+                return;
+            }
+            flush(batch);
+            batch.clear();
+        }
+    }
+
+    private void flush(List<Pending> batch) {
+        if (batch.isEmpty()) return;
+        List<Note> notes = batch.stream().map(Pending::note).toList();
+        batchSizes.record(notes.size());
+        Map<Integer, String> errors;
+        try {
+            errors = batchService.insertNotes(notes);
+        } catch (RuntimeException e) {
+            batch.forEach(entry -> fail(entry, e));
+            return;
+        }
+        for (int k = 0; k < batch.size(); k++) {
+            Pending entry = batch.get(k);
+            String error = errors.get(k);
+            if (error != null) {
+                fail(entry, new IllegalStateException(error));
+                continue;
+            }
+            cache.put(entry.note());
+            pending.remove(entry.note().getId());
+            entry.written().complete(null);
+        }
+    }
+
+    private void fail(Pending entry, RuntimeException error) {
+        pending.remove(entry.note().getId());
+        entry.written().completeExceptionally(error);
+    }
+
+    private record Pending(Note note, CompletableFuture<Void> written) {
+    }
+}
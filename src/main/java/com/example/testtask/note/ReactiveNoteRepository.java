@@ -0,0 +1,19 @@
+package com.example.testtask.note;
+
+import com.example.testtask.note.dto.NoteListItemDto;
+import com.example.testtask.note.model.Note;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+public interface ReactiveNoteRepository extends ReactiveMongoRepository<Note, String> {
+    Flux<NoteListItemDto> findListItemsBy(Pageable pageable);
+    @Query("{ 'tags': { $in: ?0 } }")
+    Flux<NoteListItemDto> findListItemsByTagMasks(List<Integer> masks, Pageable pageable);
+    @Query(value = "{ 'tags': { $in: ?0 } }", count = true)
+    Mono<Long> countByTagMasks(List<Integer> masks);
+}
@@ -0,0 +1,36 @@
+package com.example.testtask.note;
+
+import com.example.testtask.note.dto.CreateNoteRequest;
+import com.example.testtask.note.dto.NoteListItemDto;
+import com.example.testtask.note.dto.NoteSearchResultDto;
+import com.example.testtask.note.dto.NoteVersion;
+import com.example.testtask.note.dto.UpdateNoteRequest;
+import com.example.testtask.note.model.Note;
+import com.example.testtask.note.model.WordCount;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+public interface ReactiveNoteService {
+    Mono<Note> create(CreateNoteRequest req);
+    Mono<Note> update(String id, UpdateNoteRequest req);
+    Mono<Note> update(String id, UpdateNoteRequest req, Long expectedVersion);
+    Mono<Void> delete(String id);
+    Mono<Note> get(String id);
+    Mono<NoteVersion> version(String id);
+    Mono<Page<NoteListItemDto>> list(TagFilter tags, Pageable pageable);
+    Flux<NoteListItemDto> listItems(TagFilter tags, Pageable pageable);
+    Mono<Slice<NoteListItemDto>> listAfter(TagFilter tags, NoteCursor cursor, int size);
+    Flux<Note> export(TagFilter tags);
+    Mono<Page<NoteSearchResultDto>> search(String query, TagFilter tags, Pageable pageable);
+    Mono<Map<String, Long>> tagCounts();
+    Mono<Map<String, Integer>> stats(String id, int limit, int minCount);
+    Flux<WordCount> streamStats(String id, int limit, int minCount);
+    Mono<Map<String, Long>> aggregateStats(String tag, LocalDate from, LocalDate to, int limit, int minCount);
+}
@@ -0,0 +1,346 @@
+package com.example.testtask.note;
+
+import com.example.testtask.note.dto.CreateNoteRequest;
+import com.example.testtask.note.dto.NoteListItemDto;
+import com.example.testtask.note.dto.NoteSearchResultDto;
+import com.example.testtask.note.dto.NoteVersion;
+import com.example.testtask.note.dto.UpdateNoteRequest;
+import com.example.testtask.note.model.Note;
+import com.example.testtask.note.model.NoteSearchEntry;
+import com.example.testtask.note.model.NoteStats;
+import com.example.testtask.note.model.TagCount;
+import com.example.testtask.note.model.WordCount;
+import com.example.testtask.note.model.WordCounter;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.Pair;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+@Service
+@Profile("reactive")
+public class ReactiveNoteServiceImpl implements ReactiveNoteService {
+    private final ReactiveNoteRepository repo;
+    private final ReactiveNoteStatsRepository statsRepo;
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final NoteCache cache;
+    private final NoteMetrics metrics;
+    private final NoteEvents events;
+    private final int exportBatchSize;
+    private final int searchMaxTerms;
+    private final int aggregatesMaxDays;
+    private static final String NOTE_NOT_FOUND = "Note not found";
+
+    @Autowired
+    public ReactiveNoteServiceImpl(ReactiveNoteRepository repo, ReactiveNoteStatsRepository statsRepo,
+                                   ReactiveMongoTemplate mongoTemplate, NoteCache cache, NoteMetrics metrics,
+                                   NoteEvents events,
+                                   @Value("${notes.export.batch-size:500}") int exportBatchSize,
+                                   @Value("${notes.search.max-terms:10}") int searchMaxTerms,
+                                   @Value("${notes.aggregates.max-days:366}") int aggregatesMaxDays) {
+        this.repo = repo;
+        this.statsRepo = statsRepo;
+        this.mongoTemplate = mongoTemplate;
+        this.cache = cache;
+        this.metrics = metrics;
+        this.events = events;
+        this.exportBatchSize = exportBatchSize;
+        this.searchMaxTerms = searchMaxTerms;
+        this.aggregatesMaxDays = aggregatesMaxDays;
+    }
+
+    @Override
+    public Mono<Note> create(CreateNoteRequest req) {
+        return Mono.fromCallable(() -> Note.builder()
+                        .title(req.title())
+                        .createdDate(Instant.now().truncatedTo(ChronoUnit.MILLIS))
+                        .text(req.text())
+                        .tags(NoteServiceImpl.convertTags(req.tags()))
+                        .build())
+                .flatMap(repo::save)
+                .flatMap(saved -> saveStats(saved)
+                        .flatMap(stats -> {
+                            WordCountBuckets.Delta delta = new WordCountBuckets.Delta();
+                            delta.add(saved, stats.getWords());
+                            return saveSearchEntry(saved, stats.getWords()).then(applyDelta(delta));
+                        })
+                        .thenReturn(saved))
+                .doOnNext(cache::put)
+                .doOnNext(events::created);
+    }
+
+    @Override
+    public Mono<Note> update(String id, UpdateNoteRequest req) {
+        return update(id, req, null);
+    }
+
+    @Override
+    public Mono<Note> update(String id, UpdateNoteRequest req, Long expectedVersion) {
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        return Mono.fromCallable(() -> NoteServiceImpl.convertTags(req.tags()))
+                .flatMap(tags -> mongoTemplate.findAndModify(NoteServiceImpl.versionedQuery(id, expectedVersion),
+                                NoteServiceImpl.modification(req.title(), req.text(), tags, now), Note.class)
+                        .map(current -> Pair.of(current, NoteServiceImpl.modified(current, req.title(), req.text(), tags, now))))
+                .doOnNext(modified -> cache.evict(id))
+                .switchIfEmpty(Mono.defer(() -> {
+                    cache.evict(id);
+                    Mono<Boolean> exists = expectedVersion == null
+                            ? Mono.just(false)
+                            : mongoTemplate.exists(Query.query(Criteria.where("id").is(id)), Note.class);
+                    return exists.flatMap(found -> Mono.error(found
+                            ? new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, NoteServiceImpl.NOTE_MODIFIED)
+                            : new ResponseStatusException(HttpStatus.NOT_FOUND, NOTE_NOT_FOUND)));
+                }))
+                .flatMap(modified -> updateDerived(modified.getFirst(), modified.getSecond()))
+                .doOnNext(events::updated);
+    }
+
+    private Mono<Note> updateDerived(Note current, Note saved) {
+        String id = saved.getId();
+        return statsRepo.findTextHashById(id)
+                .map(stats -> !NoteServiceImpl.textHash(saved.getText()).equals(stats.getTextHash()))
+                .defaultIfEmpty(true)
+                .flatMap(textChanged -> {
+                    Mono<List<WordCount>> words = textChanged
+                            ? saveStats(saved).map(NoteStats::getWords)
+                            : wordCounts(saved.getText());
+                    return words.flatMap(newWords -> {
+                        if (!textChanged && Objects.equals(current.getTags(), saved.getTags())) {
+                            return saveSearchEntry(saved, newWords).then();
+                        }
+                        Mono<List<WordCount>> oldWords = textChanged
+                                ? wordCounts(current.getText())
+                                : Mono.just(newWords);
+                        return oldWords.flatMap(previous -> {
+                            WordCountBuckets.Delta delta = new WordCountBuckets.Delta();
+                            delta.remove(current, previous);
+                            delta.add(saved, newWords);
+                            return saveSearchEntry(saved, newWords).then(applyDelta(delta));
+                        });
+                    });
+                })
+                .thenReturn(saved);
+    }
+
+    @Override
+    public Mono<Void> delete(String id) {
+        return mongoTemplate.findAndRemove(Query.query(Criteria.where("id").is(id)), Note.class)
+                .doOnSuccess(note -> cache.evict(id))
+                .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, NOTE_NOT_FOUND)))
+                .doOnNext(events::deleted)
+                .flatMap(note -> statsRepo.deleteById(id)
+                        .then(mongoTemplate.remove(Query.query(Criteria.where("id").is(id)), NoteSearchEntry.class))
+                        .then(wordCounts(note.getText()))
+                        .flatMap(words -> {
+                            WordCountBuckets.Delta delta = new WordCountBuckets.Delta();
+                            delta.remove(note, words);
+                            return applyDelta(delta);
+                        }));
+    }
+
+    private static Mono<List<WordCount>> wordCounts(String text) {
+        return Mono.fromCallable(() -> TextStatisticsUtil.wordCounts(text)).subscribeOn(Schedulers.parallel());
+    }
+
+    @Override
+    public Mono<Note> get(String id) {
+        return Mono.justOrEmpty(cache.getIfPresent(id))
+                .switchIfEmpty(Mono.defer(() -> {
+                    long stamp = cache.stamp(id);
+                    return repo.findById(id).doOnNext(note -> cache.fill(note, stamp));
+                }))
+                .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, NOTE_NOT_FOUND)));
+    }
+
+    @Override
+    public Mono<NoteVersion> version(String id) {
+        return Mono.justOrEmpty(cache.getIfPresent(id))
+                .switchIfEmpty(Mono.defer(() -> mongoTemplate.findOne(NoteServiceImpl.versionQuery(id), Note.class)))
+                .map(NoteVersion::of)
+                .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, NOTE_NOT_FOUND)));
+    }
+
+    @Override
+    public Mono<Page<NoteListItemDto>> list(TagFilter tags, Pageable pageable) {
+        Mono<Long> total = Mono.defer(() -> tags.isEmpty() ? repo.count() : repo.countByTagMasks(tags.masks()));
+        return listItems(tags, pageable)
+                .collectList()
+                .zipWith(total, (content, count) -> new PageImpl<>(content, pageable, count));
+    }
+
+    @Override
+    public Flux<NoteListItemDto> listItems(TagFilter tags, Pageable pageable) {
+        return Flux.defer(() -> {
+            metrics.listed(pageable.getPageSize());
+            return tags.isEmpty()
+                    ? repo.findListItemsBy(pageable)
+                    : repo.findListItemsByTagMasks(tags.masks(), pageable);
+        });
+    }
+
+    @Override
+    public Mono<Slice<NoteListItemDto>> listAfter(TagFilter tags, NoteCursor cursor, int size) {
+        if (size < 1) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Page size must be >= 1."));
+        }
+        return Flux.defer(() -> {
+                    metrics.listedAfter(size);
+                    return mongoTemplate.query(Note.class)
+                            .as(NoteListItemDto.class)
+                            .matching(NoteServiceImpl.keysetQuery(tags, cursor, size + 1))
+                            .all();
+                })
+                .collectList()
+                .map(notes -> {
+                    boolean hasNext = notes.size() > size;
+                    List<NoteListItemDto> content = hasNext ? notes.subList(0, size) : notes;
+                    return new SliceImpl<>(content, PageRequest.of(0, size), hasNext);
+                });
+    }
+
+    @Override
+    public Flux<Note> export(TagFilter tags) {
+        return Flux.defer(() -> {
+            Query query = tags.isEmpty() ? new Query() : Query.query(tags.criteria());
+            query.cursorBatchSize(exportBatchSize);
+            return mongoTemplate.find(query, Note.class);
+        });
+    }
+
+    @Override
+    public Mono<Page<NoteSearchResultDto>> search(String query, TagFilter tags, Pageable pageable) {
+        return Mono.fromCallable(() -> {
+                    metrics.searched(pageable.getPageSize());
+                    return NoteSearchIndex.queryTerms(query, searchMaxTerms);
+                })
+                .flatMap(terms -> {
+                    Mono<Map<String, Long>> frequencies = Flux.fromIterable(terms)
+                            .flatMap(term -> mongoTemplate.count(NoteSearchIndex.termQuery(term), NoteSearchEntry.class)
+                                    .map(count -> Map.entry(term, count)))
+                            .collectMap(Map.Entry::getKey, Map.Entry::getValue);
+                    return Mono.zip(mongoTemplate.estimatedCount(NoteSearchEntry.class), frequencies)
+                            .flatMap(counts -> {
+                                if (counts.getT2().containsValue(0L)) {
+                                    return Mono.just(new PageImpl<>(List.<NoteSearchResultDto>of(), pageable, 0));
+                                }
+                                Map<String, Double> idf = NoteSearchIndex.idf(counts.getT1(), counts.getT2());
+                                Criteria matching = NoteSearchIndex.matching(
+                                        NoteSearchIndex.rarestFirst(counts.getT2()), tags);
+                                return mongoTemplate.aggregate(
+                                                NoteSearchIndex.rankedPage(matching, idf, pageable),
+                                                NoteSearchEntry.class, NoteSearchResultDto.class)
+                                        .collectList()
+                                        .flatMap(content -> NoteSearchIndex.lastPage(content, pageable)
+                                                ? Mono.just(new PageImpl<>(content, pageable, pageable.getOffset() + content.size()))
+                                                : mongoTemplate.count(Query.query(matching), NoteSearchEntry.class)
+                                                        .map(matches -> new PageImpl<>(content, pageable, matches)));
+                            });
+                });
+    }
+
+    @Override
+    public Mono<Map<String, Long>> tagCounts() {
+        return mongoTemplate.findAll(TagCount.class).collectList().map(NoteServiceImpl::tagCounts);
+    }
+
+    @Override
+    public Mono<Map<String, Integer>> stats(String id, int limit, int minCount) {
+        return Mono.defer(() -> {
+            NoteServiceImpl.checkStatsParams(limit, minCount);
+            Query query = Query.query(Criteria.where("id").is(id));
+            if (limit > 0) {
+                query.fields().slice("words", limit);
+            }
+            return mongoTemplate.findOne(query, NoteStats.class);
+        }).switchIfEmpty(Mono.defer(() -> get(id).flatMap(this::saveStats))).map(stats -> {
+            List<WordCount> words = stats.getWords();
+            if (limit > 0 && words.size() > limit) {
+                words = words.subList(0, limit);
+            }
+            return TextStatisticsUtil.toFrequencyMap(words, minCount);
+        });
+    }
+
+    @Override
+    public Flux<WordCount> streamStats(String id, int limit, int minCount) {
+        return Mono.fromRunnable(() -> NoteServiceImpl.checkStatsParams(limit, minCount))
+                .then(statsRepo.existsById(id))
+                .flatMap(exists -> exists ? Mono.empty() : get(id).flatMap(this::saveStats))
+                .thenMany(Flux.defer(() -> {
+                    List<AggregationOperation> pipeline = new ArrayList<>();
+                    pipeline.add(Aggregation.match(Criteria.where("id").is(id)));
+                    pipeline.add(Aggregation.unwind("words"));
+                    pipeline.add(Aggregation.match(Criteria.where("words.count").gte(minCount)));
+                    if (limit > 0) {
+                        pipeline.add(Aggregation.limit(limit));
+                    }
+                    pipeline.add(Aggregation.replaceRoot("words"));
+                    return mongoTemplate.aggregate(Aggregation.newAggregation(NoteStats.class, pipeline), WordCount.class);
+                }));
+    }
+
+    @Override
+    public Mono<Map<String, Long>> aggregateStats(String tag, LocalDate from, LocalDate to, int limit, int minCount) {
+        return Flux.defer(() -> {
+                    NoteServiceImpl.checkStatsParams(limit, minCount);
+                    return mongoTemplate.aggregate(WordCountBuckets.top(WordCountBuckets.bucketTag(tag), from, to,
+                            aggregatesMaxDays, limit, minCount), Document.class);
+                })
+                .<Map<String, Long>>collect(LinkedHashMap::new, WordCountBuckets::collect);
+    }
+
+    private Mono<Void> applyDelta(WordCountBuckets.Delta delta) {
+        return upsert(WordCounter.class, delta.updates()).then(upsert(TagCount.class, delta.tagCountUpdates()));
+    }
+
+    private Mono<Void> upsert(Class<?> type, List<Pair<Query, Update>> updates) {
+        if (updates.isEmpty()) return Mono.empty();
+        ReactiveBulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, type);
+        updates.forEach(update -> ops.upsert(update.getFirst(), update.getSecond()));
+        return ops.execute().then();
+    }
+
+    private Mono<NoteSearchEntry> saveSearchEntry(Note note, List<WordCount> words) {
+        return Mono.fromCallable(() -> NoteSearchIndex.entry(note, words))
+                .subscribeOn(Schedulers.parallel())
+                .flatMap(mongoTemplate::save);
+    }
+
+    private Mono<NoteStats> saveStats(Note note) {
+        return Mono.fromCallable(() -> {
+                    metrics.statsComputed(note.getText());
+                    return NoteServiceImpl.buildStats(note);
+                })
+                .subscribeOn(Schedulers.parallel())
+                .flatMap(statsRepo::save);
+    }
+}
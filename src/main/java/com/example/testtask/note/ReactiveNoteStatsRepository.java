@@ -0,0 +1,11 @@
+package com.example.testtask.note;
+
+import com.example.testtask.note.model.NoteStats;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveNoteStatsRepository extends ReactiveMongoRepository<NoteStats, String> {
+    @Query(value = "{ '_id': ?0 }", fields = "{ 'textHash': 1 }")
+    Mono<NoteStats> findTextHashById(String id);
+}
@@ -0,0 +1,50 @@
+package com.example.testtask.note;
+
+import com.example.testtask.note.model.Tag;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+public record TagFilter(int mask, boolean all) {
+    public static final TagFilter NONE = new TagFilter(0, false);
+
+    public static TagFilter of(List<String> tags) {
+        return of(tags, null);
+    }
+
+    public static TagFilter of(List<String> tags, String match) {
+        boolean all;
+        if (match == null || match.isBlank() || match.equalsIgnoreCase("any")) {
+            all = false;
+        } else if (match.equalsIgnoreCase("all")) {
+            all = true;
+        } else {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid tagMatch: must be 'any' or 'all'.");
+        }
+        if (tags == null || tags.isEmpty()) return NONE;
+        return new TagFilter(NoteTagCodec.mask(NoteServiceImpl.convertTags(tags)), all);
+    }
+
+    public boolean isEmpty() {
+        return mask == 0;
+    }
+
+    public boolean accepts(int tagMask) {
+        if (isEmpty()) return true;
+        return all ? (tagMask & mask) == mask : (tagMask & mask) != 0;
+    }
+
+    public List<Tag> tags() {
+        return NoteTagCodec.tags(mask);
+    }
+
+    public List<Integer> masks() {
+        return NoteTagCodec.matching(mask, all);
+    }
+
+    public Criteria criteria() {
+        return Criteria.where("tags").in(masks());
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.testtask.note;
+
+import com.example.testtask.note.model.Note;
+import com.example.testtask.note.model.Tag;
+import com.example.testtask.note.model.WordCount;
+import com.example.testtask.note.model.WordCounter;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.Pair;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Running word counts per UTC day of {@code createdDate} and per tag (plus an {@value #ALL} bucket for every
+ * note), one {@code word_counts} document per (day, tag, word), so no document grows with the vocabulary of a
+ * busy day. A delta also carries the change in the number of notes per tag, which is kept in {@code tag_counts}.
+ */
+public final class WordCountBuckets {
+    static final String ALL = "_all";
+
+    private static final Comparator<Map.Entry<String, Long>> BY_FREQUENCY =
+            Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey());
+
+    private WordCountBuckets() {
+    }
+
+    public static String bucketTag(String tag) {
+        if (tag == null || tag.isBlank()) return ALL;
+        return NoteServiceImpl.convertTags(List.of(tag)).get(0).name();
+    }
+
+    /**
+     * Sums the counters of each word over the range on the server and returns the most frequent first, ties by word.
+     */
+    public static TypedAggregation<WordCounter> top(String bucketTag, LocalDate from, LocalDate to, int maxDays, int limit, int minCount) {
+        Range range = range(from, to, maxDays);
+        List<AggregationOperation> pipeline = new ArrayList<>(List.of(
+                Aggregation.match(Criteria.where("tag").is(bucketTag)
+                        .and("day").gte(range.from().toString()).lte(range.to().toString())),
+                Aggregation.group("word").sum("count").as("count"),
+                Aggregation.match(Criteria.where("count").gte(minCount)),
+                Aggregation.sort(Sort.by(Sort.Order.desc("count"), Sort.Order.asc("_id")))));
+        if (limit > 0) {
+            pipeline.add(Aggregation.limit(limit));
+        }
+        return Aggregation.newAggregation(WordCounter.class, pipeline)
+                .withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+    }
+
+    static void collect(Map<String, Long> result, Document total) {
+        result.put(total.getString("_id"), ((Number) total.get("count")).longValue());
+    }
+
+    public static Range range(LocalDate from, LocalDate to, int maxDays) {
+        if (to == null) to = LocalDate.now(ZoneOffset.UTC);
+        if (from == null) from = to.minusDays(6);
+        if (from.isAfter(to) || ChronoUnit.DAYS.between(from, to) >= maxDays) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Invalid date range: 'from' must not be after 'to' and the range must not exceed " + maxDays + " days.");
+        }
+        return new Range(from, to);
+    }
+
+    public record Range(LocalDate from, LocalDate to) {
+    }
+
+    public static final class Delta {
+        private final Map<Key, Long> increments = new HashMap<>();
+        private final Map<Tag, Long> tagCounts = new EnumMap<>(Tag.class);
+
+        public void add(Note note, List<WordCount> words) {
+            apply(note, words, 1);
+        }
+
+        public void remove(Note note, List<WordCount> words) {
+            apply(note, words, -1);
+        }
+
+        private void apply(Note note, List<WordCount> words, int sign) {
+            if (note.getTags() != null) {
+                note.getTags().stream().distinct().forEach(tag -> tagCounts.merge(tag, (long) sign, Long::sum));
+            }
+            if (words.isEmpty() || note.getCreatedDate() == null) return;
+            String day = day(note.getCreatedDate());
+            List<String> tags = new ArrayList<>();
+            tags.add(ALL);
+            if (note.getTags() != null) {
+                note.getTags().stream().distinct().map(Tag::name).forEach(tags::add);
+            }
+            for (String tag : tags) {
+                for (WordCount word : words) {
+                    increments.merge(new Key(day, tag, word.word()), (long) sign * word.count(), Long::sum);
+                }
+            }
+        }
+
+        public List<Pair<Query, Update>> updates() {
+            List<Pair<Query, Update>> updates = new ArrayList<>(increments.size());
+            increments.forEach((key, delta) -> {
+                if (delta == 0) return;
+                Update update = new Update().inc("count", delta)
+                        .setOnInsert("day", key.day()).setOnInsert("tag", key.tag()).setOnInsert("word", key.word());
+                updates.add(Pair.of(Query.query(Criteria.where("id").is(key.id())), update));
+            });
+            return updates;
+        }
+
+        public List<Pair<Query, Update>> tagCountUpdates() {
+            List<Pair<Query, Update>> updates = new ArrayList<>(tagCounts.size());
+            tagCounts.forEach((tag, delta) -> {
+                if (delta != 0) {
+                    updates.add(Pair.of(Query.query(Criteria.where("id").is(tag.name())), new Update().inc("count", delta)));
+                }
+            });
+            return updates;
+        }
+    }
+
+    public static final class Totals {
+        private final Map<String, Long> counts = new HashMap<>();
+
+        public void add(Map<String, Long> words) {
+            if (words == null) return;
+            words.forEach((word, count) -> counts.merge(word, count, Long::sum));
+        }
+
+        public Map<String, Long> top(int limit, int minCount) {
+            int capacity = limit > 0 ? limit : Integer.MAX_VALUE;
+            PriorityQueue<Map.Entry<String, Long>> heap = new PriorityQueue<>(BY_FREQUENCY.reversed());
+            for (Map.Entry<String, Long> entry : counts.entrySet()) {
+                if (entry.getValue() < minCount) continue;
+                heap.add(entry);
+                if (heap.size() > capacity) heap.poll();
+            }
+            List<Map.Entry<String, Long>> sorted = new ArrayList<>(heap);
+            sorted.sort(BY_FREQUENCY);
+            Map<String, Long> result = new LinkedHashMap<>();
+            sorted.forEach(e -> result.put(e.getKey(), e.getValue()));
+            return result;
+        }
+    }
+
+    static String day(Instant createdDate) {
+        return LocalDate.ofInstant(createdDate, ZoneOffset.UTC).toString();
+    }
+
+    private record Key(String day, String tag, String word) {
+        String id() {
+            return day + "/" + tag + "/" + word;
+        }
+    }
+}
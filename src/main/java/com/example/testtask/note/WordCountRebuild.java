@@ -0,0 +1,107 @@
+package com.example.testtask.note;
+
+import com.example.testtask.note.model.Note;
+import com.example.testtask.note.model.TagCount;
+import com.example.testtask.note.model.WordCounter;
+import com.mongodb.MongoNamespace;
+import com.mongodb.client.model.RenameCollectionOptions;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.Pair;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Recomputes the word and tag counters from the notes collection before the web server accepts requests, when
+ * asked to or when the sharded {@value #LEGACY_BUCKETS} collection of earlier versions is still there. The
+ * counters are written to staging collections that are renamed over the live ones once complete, so readers
+ * never see them partially rebuilt. Writes made by other instances during the rebuild are not in the result;
+ * run it while they are stopped or not taking writes.
+ */
+@Component
+@Profile("!memory")
+public class WordCountRebuild implements SmartInitializingSingleton {
+    static final String LEGACY_BUCKETS = "word_count_buckets";
+    private static final String STAGING_SUFFIX = "_rebuild";
+
+    private final MongoTemplate mongoTemplate;
+    private final boolean rebuildOnStartup;
+    private final int batchSize;
+
+    @Autowired
+    public WordCountRebuild(MongoTemplate mongoTemplate,
+                            @Value("${notes.aggregates.rebuild-on-startup:false}") boolean rebuildOnStartup,
+                            @Value("${notes.aggregates.rebuild-batch-size:500}") int batchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.rebuildOnStartup = rebuildOnStartup;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        boolean legacy = mongoTemplate.collectionExists(LEGACY_BUCKETS);
+        if (rebuildOnStartup || legacy) {
+            rebuild();
+        }
+        if (legacy) {
+            mongoTemplate.dropCollection(LEGACY_BUCKETS);
+        }
+    }
+
+    public void rebuild() {
+        String buckets = staging(WordCounter.class);
+        String tagCounts = staging(TagCount.class);
+        Query notes = new Query();
+        notes.fields().include("createdDate", "text", "tags");
+        notes.cursorBatchSize(batchSize);
+        try (Stream<Note> stream = mongoTemplate.stream(notes, Note.class)) {
+            Iterator<Note> it = stream.iterator();
+            WordCountBuckets.Delta delta = new WordCountBuckets.Delta();
+            int pending = 0;
+            while (it.hasNext()) {
+                Note note = it.next();
+                delta.add(note, TextStatisticsUtil.wordCounts(note.getText()));
+                if (++pending == batchSize) {
+                    write(delta, buckets, tagCounts);
+                    delta = new WordCountBuckets.Delta();
+                    pending = 0;
+                }
+            }
+            write(delta, buckets, tagCounts);
+        }
+        replace(buckets, WordCounter.class);
+        replace(tagCounts, TagCount.class);
+    }
+
+    private String staging(Class<?> type) {
+        String name = mongoTemplate.getCollectionName(type) + STAGING_SUFFIX;
+        mongoTemplate.dropCollection(name);
+        mongoTemplate.createCollection(name);
+        return name;
+    }
+
+    private void replace(String staging, Class<?> type) {
+        MongoNamespace target = new MongoNamespace(mongoTemplate.getDb().getName(), mongoTemplate.getCollectionName(type));
+        mongoTemplate.getCollection(staging).renameCollection(target, new RenameCollectionOptions().dropTarget(true));
+    }
+
+    private void write(WordCountBuckets.Delta delta, String buckets, String tagCounts) {
+        List<Pair<Query, Update>> updates = delta.updates();
+        if (!updates.isEmpty()) {
+            mongoTemplate.bulkOps(BulkMode.UNORDERED, WordCounter.class, buckets).upsert(updates).execute();
+        }
+        List<Pair<Query, Update>> tagCountUpdates = delta.tagCountUpdates();
+        if (!tagCountUpdates.isEmpty()) {
+            mongoTemplate.bulkOps(BulkMode.UNORDERED, TagCount.class, tagCounts).upsert(tagCountUpdates).execute();
+        }
+    }
+}
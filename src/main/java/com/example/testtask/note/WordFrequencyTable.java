@@ -0,0 +1,296 @@
+package com.example.testtask.note;
+
+import com.example.testtask.note.model.WordCount;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Single-pass word counter with the same word semantics as {@code \p{L}+[\p{L}\p{N}'\-_]*}.
+ * Words are case-folded into a shared char buffer and counted in an open-addressing table keyed
+ * by char ranges of that buffer; {@code String} keys are only created when results are read.
+ * Texts of at least {@link #PARALLEL_THRESHOLD} chars are split at word boundaries and counted
+ * on the common fork-join pool; results do not depend on how the text was split.
+ */
+public final class WordFrequencyTable {
+    static final int PARALLEL_THRESHOLD = 1 << 20;
+    static final int CHUNK_SIZE = 1 << 18;
+    private static final int EMPTY = -1;
+    private static final int INITIAL_SLOTS = 64;
+
+    private final boolean localeSensitiveFolding;
+    private char[] chars;
+    private int charsUsed;
+    private int[] starts;
+    private int[] lengths;
+    private int[] hashes;
+    private int[] counts;
+    private int size;
+    private int[] slots;
+
+    private WordFrequencyTable(int expectedChars) {
+        String language = Locale.getDefault().getLanguage();
+        this.localeSensitiveFolding = language.equals("tr") || language.equals("az") || language.equals("lt");
+        this.chars = new char[Math.max(16, Math.min(expectedChars, 1 << 16))];
+        this.starts = new int[INITIAL_SLOTS / 2];
+        this.lengths = new int[INITIAL_SLOTS / 2];
+        this.hashes = new int[INITIAL_SLOTS / 2];
+        this.counts = new int[INITIAL_SLOTS / 2];
+        this.slots = new int[INITIAL_SLOTS];
+        Arrays.fill(slots, EMPTY);
+    }
+
+    public static WordFrequencyTable count(CharSequence text) {
+        int threshold = ForkJoinPool.getCommonPoolParallelism() > 1 ? PARALLEL_THRESHOLD : Integer.MAX_VALUE;
+        return count(text, threshold, CHUNK_SIZE);
+    }
+
+    static WordFrequencyTable count(CharSequence text, int parallelThreshold, int chunkSize) {
+        if (text == null) return new WordFrequencyTable(0);
+        if (text.length() < parallelThreshold) {
+            return countRange(text, 0, text.length());
+        }
+        return ForkJoinPool.commonPool().invoke(new CountTask(text, 0, text.length(), chunkSize));
+    }
+
+    private static WordFrequencyTable countRange(CharSequence text, int from, int to) {
+        WordFrequencyTable table = new WordFrequencyTable((to - from) / 4);
+        table.scan(text, from, to);
+        return table;
+    }
+
+    /**
+     * First index at or after {@code index} where a chunk may start without cutting a word or a
+     * surrogate pair, or {@code to} if there is none.
+     */
+    static int wordBoundary(CharSequence text, int index, int to) {
+        int i = index;
+        if (i > 0 && i < to && Character.isLowSurrogate(text.charAt(i)) && Character.isHighSurrogate(text.charAt(i - 1))) {
+            i++;
+        }
+        while (i < to) {
+            int cp = Character.codePointAt(text, i);
+            if (!isWordPart(cp)) return i;
+            i += Character.charCount(cp);
+        }
+        return to;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String word(int entry) {
+        return new String(chars, starts[entry], lengths[entry]);
+    }
+
+    public int count(int entry) {
+        return counts[entry];
+    }
+
+    public int[] sortedByFrequency() {
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) order[i] = i;
+        mergeSort(order, new int[size], 0, size);
+        return order;
+    }
+
+    public Map<String, Integer> toMap(int[] entries) {
+        Map<String, Integer> result = new LinkedHashMap<>(Math.max(16, (int) (entries.length / 0.75f) + 1));
+        for (int entry : entries) {
+            result.put(word(entry), counts[entry]);
+        }
+        return result;
+    }
+
+    public Map<String, Integer> toSortedMap() {
+        return toMap(sortedByFrequency());
+    }
+
+    public List<WordCount> toWordCounts() {
+        List<WordCount> result = new ArrayList<>(size);
+        for (int entry : sortedByFrequency()) {
+            result.add(new WordCount(word(entry), counts[entry]));
+        }
+        return result;
+    }
+
+    private void merge(WordFrequencyTable other) {
+        for (int entry = 0; entry < other.size; entry++) {
+            int start = charsUsed;
+            int length = other.lengths[entry];
+            while (charsUsed + length > chars.length) {
+                chars = Arrays.copyOf(chars, chars.length * 2);
+            }
+            System.arraycopy(other.chars, other.starts[entry], chars, start, length);
+            charsUsed += length;
+            add(start, length, other.hashes[entry], other.counts[entry]);
+        }
+    }
+
+    private void scan(CharSequence text, int from, int to) {
+        int i = from;
+        while (i < to) {
+            int cp = Character.codePointAt(text, i);
+            if (!Character.isLetter(cp)) {
+                i += Character.charCount(cp);
+                continue;
+            }
+            int wordStart = charsUsed;
+            boolean simpleFolding = !localeSensitiveFolding;
+            int j = i;
+            while (j < to) {
+                cp = Character.codePointAt(text, j);
+                if (!isWordPart(cp)) break;
+                if (cp == '\u0130' || cp == '\u03A3') simpleFolding = false;
+                appendCodePoint(Character.toLowerCase(cp));
+                j += Character.charCount(cp);
+            }
+            if (!simpleFolding) {
+                charsUsed = wordStart;
+                String folded = text.subSequence(i, j).toString().toLowerCase();
+                for (int k = 0; k < folded.length(); k++) appendChar(folded.charAt(k));
+            }
+            add(wordStart, charsUsed - wordStart);
+            i = j;
+        }
+    }
+
+    private static boolean isWordPart(int cp) {
+        if (cp == '\'' || cp == '-' || cp == '_') return true;
+        if (Character.isLetter(cp)) return true;
+        int type = Character.getType(cp);
+        return type == Character.DECIMAL_DIGIT_NUMBER
+                || type == Character.LETTER_NUMBER
+                || type == Character.OTHER_NUMBER;
+    }
+
+    private void appendCodePoint(int cp) {
+        if (Character.isBmpCodePoint(cp)) {
+            appendChar((char) cp);
+        } else {
+            appendChar(Character.highSurrogate(cp));
+            appendChar(Character.lowSurrogate(cp));
+        }
+    }
+
+    private void appendChar(char c) {
+        if (charsUsed == chars.length) {
+            chars = Arrays.copyOf(chars, chars.length * 2);
+        }
+        chars[charsUsed++] = c;
+    }
+
+    private void add(int start, int length) {
+        int hash = 0;
+        for (int k = start; k < start + length; k++) hash = 31 * hash + chars[k];
+        add(start, length, hash, 1);
+    }
+
+    private void add(int start, int length, int hash, int count) {
+        int mask = slots.length - 1;
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        while (true) {
+            int entry = slots[slot];
+            if (entry == EMPTY) {
+                insert(slot, start, length, hash, count);
+                return;
+            }
+            if (hashes[entry] == hash && lengths[entry] == length
+                    && Arrays.equals(chars, starts[entry], starts[entry] + length, chars, start, start + length)) {
+                counts[entry] += count;
+                charsUsed = start;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private void insert(int slot, int start, int length, int hash, int count) {
+        if (size == starts.length) {
+            int capacity = size * 2;
+            starts = Arrays.copyOf(starts, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            hashes = Arrays.copyOf(hashes, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+        }
+        starts[size] = start;
+        lengths[size] = length;
+        hashes[size] = hash;
+        counts[size] = count;
+        slots[slot] = size++;
+        if (size * 2 > slots.length) rehash();
+    }
+
+    private void rehash() {
+        int[] grown = new int[slots.length * 2];
+        Arrays.fill(grown, EMPTY);
+        int mask = grown.length - 1;
+        for (int entry = 0; entry < size; entry++) {
+            int slot = (hashes[entry] ^ (hashes[entry] >>> 16)) & mask;
+            while (grown[slot] != EMPTY) slot = (slot + 1) & mask;
+            grown[slot] = entry;
+        }
+        slots = grown;
+    }
+
+    int compareByFrequency(int a, int b) {
+        if (counts[a] != counts[b]) return counts[a] > counts[b] ? -1 : 1;
+        return Arrays.compare(chars, starts[a], starts[a] + lengths[a], chars, starts[b], starts[b] + lengths[b]);
+    }
+
+    private void mergeSort(int[] order, int[] buffer, int from, int to) {
+        if (to - from < 2) return;
+        int mid = (from + to) >>> 1;
+        mergeSort(order, buffer, from, mid);
+        mergeSort(order, buffer, mid, to);
+        if (compareByFrequency(order[mid - 1], order[mid]) <= 0) return;
+        System.arraycopy(order, from, buffer, from, to - from);
+        int left = from, right = mid;
+        for (int k = from; k < to; k++) {
+            if (right >= to || (left < mid && compareByFrequency(buffer[left], buffer[right]) <= 0)) {
+                order[k] = buffer[left++];
+            } else {
+                order[k] = buffer[right++];
+            }
+        }
+    }
+
+    private static final class CountTask extends RecursiveTask<WordFrequencyTable> {
+        private final CharSequence text;
+        private final int from;
+        private final int to;
+        private final int chunkSize;
+
+        CountTask(CharSequence text, int from, int to, int chunkSize) {
+            this.text = text;
+            this.from = from;
+            this.to = to;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        protected WordFrequencyTable compute() {
+            int split = to - from > chunkSize ? wordBoundary(text, (from + to) >>> 1, to) : to;
+            if (split >= to) {
+                return countRange(text, from, to);
+            }
+            CountTask left = new CountTask(text, from, split, chunkSize);
+            left.fork();
+            WordFrequencyTable right = new CountTask(text, split, to, chunkSize).compute();
+            WordFrequencyTable merged = left.join();
+            if (merged.size < right.size) {
+                right.merge(merged);
+                return right;
+            }
+            merged.merge(right);
+            return merged;
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.testtask.note.dto;
+
+public record BatchItemResultDto(int index,
+                                 String id,
+                                 int status,
+                                 String error) {
+}
@@ -0,0 +1,8 @@
+package com.example.testtask.note.dto;
+
+import java.util.List;
+
+public record BatchResultDto(int succeeded,
+                             int failed,
+                             List<BatchItemResultDto> items) {
+}
@@ -0,0 +1,11 @@
+package com.example.testtask.note.dto;
+
+import jakarta.validation.constraints.NotBlank;
+
+import java.util.List;
+
+public record BatchUpdateNoteRequest(@NotBlank String id,
+                                     @NotBlank String title,
+                                     @NotBlank String text,
+                                     List<String> tags) {
+}
@@ -0,0 +1,5 @@
+package com.example.testtask.note.dto;
+
+public record ImportErrorDto(long line,
+                             String error) {
+}
@@ -0,0 +1,8 @@
+package com.example.testtask.note.dto;
+
+import java.util.List;
+
+public record ImportResultDto(long accepted,
+                              long rejected,
+                              List<ImportErrorDto> errors) {
+}
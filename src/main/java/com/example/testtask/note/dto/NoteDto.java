@@ -1,5 +1,7 @@
 package com.example.testtask.note.dto;
 
+import com.example.testtask.note.model.Note;
+
 import java.time.Instant;
 import java.util.List;
 
@@ -8,4 +10,12 @@ public record NoteDto(String id,
                       Instant createdDate,
                       String text,
                       List<String> tags) {
+
+    public static NoteDto from(Note n) {
+        List<String> tags = n.getTags() == null ? List.of() :
+                n.getTags().stream()
+                        .map(Enum::name)
+                        .toList();
+        return new NoteDto(n.getId(), n.getTitle(), n.getCreatedDate(), n.getText(), tags);
+    }
 }
@@ -0,0 +1,12 @@
+package com.example.testtask.note.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+public record NoteEventDto(String eventId,
+                           String type,
+                           String id,
+                           Long version,
+                           List<String> tags,
+                           Instant time) {
+}
@@ -0,0 +1,11 @@
+package com.example.testtask.note.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+public record NoteSearchResultDto(String id,
+                                  String title,
+                                  Instant createdDate,
+                                  List<String> tags,
+                                  double score) {
+}
@@ -0,0 +1,9 @@
+package com.example.testtask.note.dto;
+
+import java.util.List;
+
+public record NoteSliceDto(List<NoteListItemDto> content,
+                           int size,
+                           boolean hasNext,
+                           String nextCursor) {
+}
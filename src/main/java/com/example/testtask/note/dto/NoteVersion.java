@@ -0,0 +1,31 @@
+package com.example.testtask.note.dto;
+
+import com.example.testtask.note.model.Note;
+
+import java.time.Instant;
+
+public record NoteVersion(String id,
+                          long version,
+                          Instant lastModifiedDate) {
+
+    public static NoteVersion of(Note n) {
+        return new NoteVersion(n.getId(),
+                n.getVersion() == null ? 0 : n.getVersion(),
+                n.getLastModifiedDate() == null ? n.getCreatedDate() : n.getLastModifiedDate());
+    }
+
+    public String etag() {
+        return "\"" + version + "\"";
+    }
+
+    public static Long parseIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) return null;
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) tag = tag.substring(2);
+        try {
+            return Long.parseLong(tag.replace("\"", ""));
+        } catch (NumberFormatException e) {
+            return -1L;
+        }
+    }
+}
@@ -2,6 +2,10 @@ package com.example.testtask.note.model;
 
 import lombok.*;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.Instant;
@@ -9,10 +13,14 @@ import java.util.List;
 
 @Getter
 @Setter
-@Builder
+@Builder(toBuilder = true)
 @AllArgsConstructor
 @NoArgsConstructor
 @Document(collection = "notes")
+@CompoundIndexes({
+        @CompoundIndex(name = "createdDate_id", def = "{ 'createdDate': -1, '_id': -1 }"),
+        @CompoundIndex(name = "tags_createdDate_id", def = "{ 'tags': 1, 'createdDate': -1, '_id': -1 }")
+})
 public class Note {
     @Id
     private String id;
@@ -20,4 +28,8 @@ public class Note {
     private Instant createdDate;
     private String text;
     private List<Tag> tags;
+    @Version
+    private Long version;
+    @LastModifiedDate
+    private Instant lastModifiedDate;
 }
@@ -0,0 +1,25 @@
+package com.example.testtask.note.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.List;
+
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Document(collection = "note_search")
+@CompoundIndex(name = "terms_term", def = "{ 'terms.term': 1 }")
+public class NoteSearchEntry {
+    @Id
+    private String id;
+    private String title;
+    private Instant createdDate;
+    private List<Tag> tags;
+    private List<SearchTerm> terms;
+}
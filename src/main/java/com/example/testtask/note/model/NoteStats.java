@@ -0,0 +1,20 @@
+package com.example.testtask.note.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.List;
+
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Document(collection = "note_stats")
+public class NoteStats {
+    @Id
+    private String id;
+    private String textHash;
+    private List<WordCount> words;
+}
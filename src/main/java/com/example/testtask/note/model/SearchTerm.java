@@ -0,0 +1,5 @@
+package com.example.testtask.note.model;
+
+public record SearchTerm(String term,
+                         int weight) {
+}
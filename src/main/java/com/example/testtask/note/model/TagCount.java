@@ -0,0 +1,17 @@
+package com.example.testtask.note.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Document(collection = "tag_counts")
+public class TagCount {
+    @Id
+    private String id;
+    private long count;
+}
@@ -0,0 +1,5 @@
+package com.example.testtask.note.model;
+
+public record WordCount(String word,
+                        int count) {
+}
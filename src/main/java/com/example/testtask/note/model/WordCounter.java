@@ -0,0 +1,22 @@
+package com.example.testtask.note.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Document(collection = "word_counts")
+@CompoundIndex(name = "tag_day_word", def = "{ 'tag': 1, 'day': 1, 'word': 1, 'count': 1 }")
+public class WordCounter {
+    @Id
+    private String id;
+    private String day;
+    private String tag;
+    private String word;
+    private long count;
+}
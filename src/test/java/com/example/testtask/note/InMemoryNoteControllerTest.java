@@ -0,0 +1,188 @@
+package com.example.testtask.note;
+
+import com.example.testtask.note.dto.CreateNoteRequest;
+import com.example.testtask.note.dto.UpdateNoteRequest;
+import com.example.testtask.note.model.Note;
+import com.example.testtask.note.model.Tag;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.json.JsonCompareMode;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@ActiveProfiles("memory")
+@AutoConfigureMockMvc
+class InMemoryNoteControllerTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private InMemoryNoteStore store;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void cleanUp() {
+        store.list(TagFilter.NONE, null).map(Note::getId).toList().forEach(store::remove);
+    }
+
+    private String createViaApi(CreateNoteRequest request) throws Exception {
+        MvcResult result = mockMvc.perform(post("/api/notes")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andReturn();
+        return objectMapper.readTree(result.getResponse().getContentAsString()).get("id").asText();
+    }
+
+    private static Note note(String title, String text, List<Tag> tags, Instant createdDate) {
+        return Note.builder()
+                .id(new ObjectId().toHexString())
+                .title(title)
+                .createdDate(createdDate)
+                .text(text)
+                .tags(tags)
+                .version(0L)
+                .lastModifiedDate(createdDate)
+                .build();
+    }
+
+    @Test
+    void shouldServeVersionedNotesAndTagFiltersWithoutMongo() throws Exception {
+        String both = createViaApi(new CreateNoteRequest("Both", "Apple apple banana.", List.of("important", "business")));
+        String personal = createViaApi(new CreateNoteRequest("Personal", "Apple cherry.", List.of("PERSONAL")));
+
+        mockMvc.perform(get("/api/notes/{id}", both))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"0\""))
+                .andExpect(jsonPath("$.tags", contains("BUSINESS", "IMPORTANT")));
+        mockMvc.perform(get("/api/notes/{id}/stats", both))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"apple\":2,\"banana\":1}", JsonCompareMode.STRICT));
+        mockMvc.perform(get("/api/notes").param("tags", "business", "personal"))
+                .andExpect(jsonPath("$.totalElements").value(2));
+        mockMvc.perform(get("/api/notes").param("tags", "business", "personal").param("tagMatch", "all"))
+                .andExpect(jsonPath("$.totalElements").value(0));
+        mockMvc.perform(get("/api/notes/stats").param("tag", "personal"))
+                .andExpect(content().json("{\"apple\":1,\"cherry\":1}", JsonCompareMode.STRICT));
+
+        String body = objectMapper.writeValueAsString(new UpdateNoteRequest("Personal", "Cherry.", List.of("IMPORTANT")));
+        mockMvc.perform(put("/api/notes/{id}", personal).header(HttpHeaders.IF_MATCH, "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+        mockMvc.perform(put("/api/notes/{id}", personal).header(HttpHeaders.IF_MATCH, "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(put("/api/notes/{id}", "000000000000000000000000")
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/notes/tags/counts"))
+                .andExpect(content().json("{\"BUSINESS\":1,\"PERSONAL\":0,\"IMPORTANT\":2}", JsonCompareMode.STRICT));
+        mockMvc.perform(get("/api/notes/stats"))
+                .andExpect(content().json("{\"apple\":2,\"banana\":1,\"cherry\":1}", JsonCompareMode.STRICT));
+
+        mockMvc.perform(delete("/api/notes/{id}", both)).andExpect(status().isNoContent());
+        mockMvc.perform(delete("/api/notes/{id}", both)).andExpect(status().isNotFound());
+        mockMvc.perform(post("/api/notes/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(
+                                new CreateNoteRequest("Batch", "Text", List.of("BUSINESS")),
+                                new CreateNoteRequest("", "Text", List.of())))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.succeeded").value(1))
+                .andExpect(jsonPath("$.items[1].status").value(400));
+        mockMvc.perform(get("/api/notes/tags/counts"))
+                .andExpect(content().json("{\"BUSINESS\":1,\"PERSONAL\":0,\"IMPORTANT\":1}", JsonCompareMode.STRICT));
+    }
+
+    @Test
+    void shouldPageWithCursorAndRankSearchResultsLikeMongo() throws Exception {
+        Instant now = Instant.now();
+        store.put(note("Note D", "Text", List.of(Tag.BUSINESS), now.minusSeconds(1)));
+        store.put(note("Note C", "Text", List.of(Tag.PERSONAL), now.minusSeconds(2)));
+        store.put(note("Note B", "Text", List.of(Tag.BUSINESS), now.minusSeconds(2)));
+        store.put(note("Note A", "Mongo index index index.", List.of(Tag.BUSINESS), now.minusSeconds(3)));
+
+        List<String> titles = new ArrayList<>();
+        String cursor = "";
+        do {
+            MvcResult page = mockMvc.perform(get("/api/notes").param("cursor", cursor).param("size", "3"))
+                    .andExpect(status().isOk())
+                    .andReturn();
+            JsonNode json = objectMapper.readTree(page.getResponse().getContentAsString());
+            json.get("content").forEach(n -> titles.add(n.get("title").asText()));
+            cursor = json.get("nextCursor").isNull() ? null : json.get("nextCursor").asText();
+        } while (cursor != null);
+        assertEquals(List.of("Note D", "Note B", "Note C", "Note A"), titles);
+
+        mockMvc.perform(get("/api/notes").param("tags", "BUSINESS").param("page", "1").param("size", "2"))
+                .andExpect(jsonPath("$.totalElements").value(3))
+                .andExpect(jsonPath("$.content[0].title").value("Note A"));
+
+        String weekend = createViaApi(new CreateNoteRequest("Weekend", "Read about mongo and an index.", List.of("PERSONAL")));
+        mockMvc.perform(get("/api/notes/search").param("q", "INDEX"))
+                .andExpect(jsonPath("$.totalElements").value(2))
+                .andExpect(jsonPath("$.content[0].title").value("Note A"))
+                .andExpect(jsonPath("$.content[1].id").value(weekend))
+                .andExpect(jsonPath("$.content[0].score").value(greaterThan(0.0)));
+        mockMvc.perform(get("/api/notes/search").param("q", "mongo index").param("tags", "personal"))
+                .andExpect(jsonPath("$.totalElements").value(1))
+                .andExpect(jsonPath("$.content[0].tags", contains("PERSONAL")));
+        mockMvc.perform(get("/api/notes/search").param("q", "index text"))
+                .andExpect(jsonPath("$.totalElements").value(0));
+    }
+
+    @Test
+    void shouldRecoverNotesFromSnapshotAndJournal(@TempDir Path dir) throws Exception {
+        Instant now = Instant.now();
+        InMemoryNoteStore durable = new InMemoryNoteStore(objectMapper, dir.toString(), false, 3);
+        List<Note> notes = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Note note = note("Note " + i, "Word" + i, List.of(Tag.values()[i % 3]), now.plusSeconds(i));
+            durable.put(note);
+            notes.add(note);
+        }
+        durable.update(notes.get(1).getId(), 0L,
+                current -> NoteServiceImpl.modified(current, "Renamed", "Fresh", List.of(Tag.IMPORTANT), now));
+        durable.remove(notes.get(4).getId());
+        durable.close();
+        Files.writeString(dir.resolve("notes.journal.ndjson"), "{\"op\":\"put\",\"id\":\"torn",
+                StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        InMemoryNoteStore recovered = new InMemoryNoteStore(objectMapper, dir.toString(), false, 3);
+        assertEquals(List.of("Note 3", "Note 2", "Renamed", "Note 0"),
+                recovered.list(TagFilter.NONE, null).map(Note::getTitle).toList());
+        assertEquals(1L, recovered.get(notes.get(1).getId()).getVersion());
+        assertNull(recovered.get(notes.get(4).getId()));
+        assertEquals(2L, recovered.count(TagFilter.of(List.of("IMPORTANT"))));
+        assertEquals(1, recovered.search(List.of("fresh"), TagFilter.NONE).size());
+        recovered.close();
+    }
+}
@@ -1,35 +1,53 @@
 package com.example.testtask.note;
 
 
+import com.example.testtask.note.dto.BatchUpdateNoteRequest;
 import com.example.testtask.note.dto.CreateNoteRequest;
 import com.example.testtask.note.dto.UpdateNoteRequest;
 import com.example.testtask.note.model.Note;
+import com.example.testtask.note.model.NoteSearchEntry;
 import com.example.testtask.note.model.Tag;
+import com.example.testtask.note.model.TagCount;
+import com.example.testtask.note.model.WordCounter;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bson.Document;
+import org.bson.types.ObjectId;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.json.JsonCompareMode;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.testcontainers.containers.MongoDBContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 
 import static org.hamcrest.Matchers.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
-@SpringBootTest
+@SpringBootTest(properties = "notes.import.max-line-length=65536")
 @Testcontainers
 @AutoConfigureMockMvc
 class NoteControllerTest {
@@ -42,6 +60,12 @@ class NoteControllerTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @Container
     static MongoDBContainer mongoDBContainer = new MongoDBContainer("mongo:6.0");
 
@@ -54,6 +78,9 @@ class NoteControllerTest {
     @AfterEach
     void cleanUp() {
         noteRepository.deleteAll();
+        mongoTemplate.remove(new Query(), NoteSearchEntry.class);
+        mongoTemplate.remove(new Query(), WordCounter.class);
+        mongoTemplate.remove(new Query(), TagCount.class);
     }
 
 
@@ -129,6 +156,138 @@ class NoteControllerTest {
         assertEquals("Updated Title", updatedInDb.getTitle());
     }
 
+    @Test
+    void shouldAnswerConditionalReadsWithNotModified() throws Exception {
+        String id = createViaApi(new CreateNoteRequest("Title", "Some text text", List.of()));
+
+        MvcResult first = mockMvc.perform(get("/api/notes/{id}", id))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"0\""))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andReturn();
+        String lastModified = first.getResponse().getHeader(HttpHeaders.LAST_MODIFIED);
+
+        mockMvc.perform(get("/api/notes/{id}", id).header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        mockMvc.perform(get("/api/notes/{id}", id).header(HttpHeaders.IF_MODIFIED_SINCE, lastModified))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/notes/{id}/stats", id).header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(put("/api/notes/{id}", id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new UpdateNoteRequest("Title", "Other text", List.of()))))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+        mockMvc.perform(get("/api/notes/{id}/stats", id).header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""))
+                .andExpect(jsonPath("$.other").value(1));
+        mockMvc.perform(get("/api/notes/{id}", "000000000000000000000000").header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void shouldRejectUpdatesOfStaleVersions() throws Exception {
+        String id = createViaApi(new CreateNoteRequest("Title", "Text", List.of()));
+        String body = objectMapper.writeValueAsString(new UpdateNoteRequest("Title", "New text", List.of()));
+
+        mockMvc.perform(put("/api/notes/{id}", id).header(HttpHeaders.IF_MATCH, "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+        mockMvc.perform(put("/api/notes/{id}", id).header(HttpHeaders.IF_MATCH, "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isPreconditionFailed());
+
+        mockMvc.perform(get("/api/notes/{id}", id)).andExpect(status().isOk());
+        mongoTemplate.updateFirst(Query.query(Criteria.where("id").is(id)), new Update().inc("version", 1), Note.class);
+        mockMvc.perform(put("/api/notes/{id}", id).header(HttpHeaders.IF_MATCH, "\"1\"")
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(put("/api/notes/{id}", "000000000000000000000000").header(HttpHeaders.IF_MATCH, "\"1\"")
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(put("/api/notes/{id}", id).contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""));
+    }
+
+    @Test
+    void shouldVersionNotesWrittenBeforeVersioning() throws Exception {
+        ObjectId id = new ObjectId();
+        mongoTemplate.getCollection("notes").insertOne(new Document("_id", id)
+                .append("title", "Legacy")
+                .append("createdDate", new Date())
+                .append("text", "Legacy text")
+                .append("tags", List.of()));
+
+        mockMvc.perform(get("/api/notes/{id}", id.toHexString()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"0\""))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED));
+        mockMvc.perform(put("/api/notes/{id}", id.toHexString()).header(HttpHeaders.IF_MATCH, "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new UpdateNoteRequest("Legacy", "Updated", List.of()))))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+    }
+
+    @Test
+    void shouldFilterByAnyOrAllTagsAndCountNotesPerTag() throws Exception {
+        String both = createViaApi(new CreateNoteRequest("Both", "Text", List.of("important", "business")));
+        String personal = createViaApi(new CreateNoteRequest("Personal", "Text", List.of("PERSONAL")));
+        String business = createViaApi(new CreateNoteRequest("Business", "Text", List.of("Business")));
+
+        assertEquals(5, mongoTemplate.getCollection("notes").find(new Document("_id", new ObjectId(both))).first().get("tags"));
+        mockMvc.perform(get("/api/notes").param("tags", "business", "personal"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(3));
+        mockMvc.perform(get("/api/notes").param("tags", "business", "important").param("tagMatch", "all"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(1))
+                .andExpect(jsonPath("$.content[0].title").value("Both"));
+        mockMvc.perform(get("/api/notes").param("tags", "business").param("tagMatch", "some"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/notes/tags/counts"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"BUSINESS\":2,\"PERSONAL\":1,\"IMPORTANT\":1}", JsonCompareMode.STRICT));
+
+        mockMvc.perform(put("/api/notes/{id}", personal)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new UpdateNoteRequest("Personal", "Text", List.of("IMPORTANT")))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.tags[0]").value("IMPORTANT"));
+        mockMvc.perform(delete("/api/notes/{id}", business)).andExpect(status().isNoContent());
+        mockMvc.perform(get("/api/notes/tags/counts"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"BUSINESS\":1,\"PERSONAL\":0,\"IMPORTANT\":2}", JsonCompareMode.STRICT));
+    }
+
+    @Test
+    void shouldReadAndMigrateTagNamesWrittenBeforeBitmasks() throws Exception {
+        ObjectId id = new ObjectId();
+        mongoTemplate.getCollection("notes").insertOne(new Document("_id", id)
+                .append("title", "Legacy")
+                .append("createdDate", new Date())
+                .append("text", "Legacy text")
+                .append("tags", List.of("PERSONAL", "BUSINESS")));
+
+        mockMvc.perform(get("/api/notes/{id}", id.toHexString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.tags", contains("BUSINESS", "PERSONAL")));
+        mockMvc.perform(get("/api/notes").param("tags", "personal"))
+                .andExpect(jsonPath("$.totalElements").value(0));
+
+        assertEquals(1, new NoteTagMigration(mongoTemplate, 2).migrate());
+        assertEquals(0, new NoteTagMigration(mongoTemplate, 2).migrate());
+        mockMvc.perform(get("/api/notes").param("tags", "personal"))
+                .andExpect(jsonPath("$.totalElements").value(1));
+        mockMvc.perform(get("/api/notes/tags/counts"))
+                .andExpect(content().json("{\"BUSINESS\":1,\"PERSONAL\":1,\"IMPORTANT\":0}", JsonCompareMode.STRICT));
+    }
+
     @Test
     void shouldDeleteNoteSuccessfully() throws Exception {
         Note note = createTestNote("Delete Me", "Text", List.of(), Instant.now());
@@ -180,4 +339,403 @@ class NoteControllerTest {
 
         assertEquals(expectedStripped, actualStripped, "The order of words in the statistics map must match the expected sorted order.");
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldLimitWordStatistics() throws Exception {
+        Note note = createTestNote("Stats Note", "The word WORD is just a word. Just saying.", List.of(), Instant.now());
+
+        MvcResult result = mockMvc.perform(get("/api/notes/{id}/stats", note.getId())
+                        .param("limit", "3")
+                        .param("minCount", "2"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        assertEquals("{\"word\":3,\"just\":2}", result.getResponse().getContentAsString());
+
+        mockMvc.perform(get("/api/notes/{id}/stats", note.getId())
+                        .param("limit", "-1"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldStreamWordStatisticsAsNdjson() throws Exception {
+        Note note = createTestNote("Stats Note", "The word WORD is just a word.", List.of(), Instant.now());
+
+        MvcResult result = mockMvc.perform(get("/api/notes/{id}/stats/stream", note.getId())
+                        .param("limit", "2"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string("{\"word\":\"word\",\"count\":3}\n{\"word\":\"a\",\"count\":1}\n"));
+
+        mockMvc.perform(get("/api/notes/{id}/stats/stream", "nonExistentId"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void shouldPageThroughNotesWithCursor() throws Exception {
+        Instant now = Instant.now();
+        createTestNote("Note D", "Text", List.of(Tag.BUSINESS), now.minusSeconds(1));
+        createTestNote("Note C", "Text", List.of(Tag.PERSONAL), now.minusSeconds(2));
+        createTestNote("Note B", "Text", List.of(Tag.BUSINESS), now.minusSeconds(2));
+        createTestNote("Note A", "Text", List.of(Tag.BUSINESS), now.minusSeconds(3));
+
+        MvcResult first = mockMvc.perform(get("/api/notes")
+                        .param("cursor", "")
+                        .param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").doesNotExist())
+                .andExpect(jsonPath("$.content.length()").value(2))
+                .andExpect(jsonPath("$.content[0].title").value("Note D"))
+                .andExpect(jsonPath("$.hasNext").value(true))
+                .andReturn();
+        String cursor = objectMapper.readTree(first.getResponse().getContentAsString()).get("nextCursor").asText();
+
+        MvcResult second = mockMvc.perform(get("/api/notes")
+                        .param("cursor", cursor)
+                        .param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(2))
+                .andExpect(jsonPath("$.hasNext").value(false))
+                .andExpect(jsonPath("$.nextCursor").value(nullValue()))
+                .andReturn();
+
+        List<String> titles = new ArrayList<>();
+        for (MvcResult r : List.of(first, second)) {
+            objectMapper.readTree(r.getResponse().getContentAsString()).get("content")
+                    .forEach(n -> titles.add(n.get("title").asText()));
+        }
+        assertEquals(List.of("Note D", "Note B", "Note C", "Note A"), titles);
+
+        mockMvc.perform(get("/api/notes")
+                        .param("cursor", "")
+                        .param("tags", "BUSINESS")
+                        .param("size", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(3))
+                .andExpect(jsonPath("$.content[0].title").value("Note D"))
+                .andExpect(jsonPath("$.content[2].title").value("Note A"));
+
+        mockMvc.perform(get("/api/notes")
+                        .param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldSearchNotesByRelevance() throws Exception {
+        String tuning = createViaApi(new CreateNoteRequest("Mongo tuning", "Index index index scans.", List.of("BUSINESS")));
+        String weekend = createViaApi(new CreateNoteRequest("Weekend", "Read about mongo and an index.", List.of("PERSONAL")));
+        createViaApi(new CreateNoteRequest("Groceries", "Milk and eggs.", List.of()));
+
+        mockMvc.perform(get("/api/notes/search").param("q", "INDEX"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(2))
+                .andExpect(jsonPath("$.content[0].id").value(tuning))
+                .andExpect(jsonPath("$.content[1].id").value(weekend))
+                .andExpect(jsonPath("$.content[0].score").value(greaterThan(0.0)));
+
+        mockMvc.perform(get("/api/notes/search").param("q", "mongo index").param("tags", "personal"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(1))
+                .andExpect(jsonPath("$.content[0].title").value("Weekend"))
+                .andExpect(jsonPath("$.content[0].tags", contains("PERSONAL")));
+
+        mockMvc.perform(get("/api/notes/search").param("q", "milk index"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(0));
+
+        mockMvc.perform(put("/api/notes/{id}", weekend)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new UpdateNoteRequest("Weekend", "Milk.", List.of()))))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/api/notes/{id}", tuning))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/api/notes/search").param("q", "index"))
+                .andExpect(jsonPath("$.totalElements").value(0));
+        mockMvc.perform(get("/api/notes/search").param("q", "milk"))
+                .andExpect(jsonPath("$.totalElements").value(2));
+
+        mockMvc.perform(get("/api/notes/search").param("q", "?!"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldRankEveryMatchOfACommonWord() throws Exception {
+        for (int i = 0; i < 40; i++) {
+            createViaApi(new CreateNoteRequest("Note " + i, "A common word.", List.of()));
+        }
+        String best = createViaApi(new CreateNoteRequest("Common", "Common common common.", List.of()));
+
+        mockMvc.perform(get("/api/notes/search").param("q", "common").param("size", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(41))
+                .andExpect(jsonPath("$.content.length()").value(5))
+                .andExpect(jsonPath("$.content[0].id").value(best));
+
+        mockMvc.perform(get("/api/notes/search").param("q", "common").param("size", "5").param("page", "8"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(41))
+                .andExpect(jsonPath("$.content.length()").value(1));
+    }
+
+    @Test
+    void shouldAggregateWordFrequenciesIncrementally() throws Exception {
+        String first = createViaApi(new CreateNoteRequest("First", "Apple apple banana.", List.of("BUSINESS")));
+        String second = createViaApi(new CreateNoteRequest("Second", "Apple cherry.", List.of("PERSONAL")));
+
+        assertAggregate(get("/api/notes/stats"), "{\"apple\":3,\"banana\":1,\"cherry\":1}");
+        assertAggregate(get("/api/notes/stats").param("tag", "business"), "{\"apple\":2,\"banana\":1}");
+        assertAggregate(get("/api/notes/stats").param("limit", "1"), "{\"apple\":3}");
+
+        mockMvc.perform(put("/api/notes/{id}", first)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new UpdateNoteRequest("First", "Banana.", List.of("PERSONAL")))))
+                .andExpect(status().isOk());
+        assertAggregate(get("/api/notes/stats"), "{\"apple\":1,\"banana\":1,\"cherry\":1}");
+        assertAggregate(get("/api/notes/stats").param("tag", "BUSINESS"), "{}");
+        assertAggregate(get("/api/notes/stats").param("tag", "PERSONAL"), "{\"apple\":1,\"banana\":1,\"cherry\":1}");
+
+        mockMvc.perform(post("/api/notes/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(
+                                new CreateNoteRequest("Third", "Cherry cherry.", List.of("BUSINESS"))))))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/api/notes/{id}", second))
+                .andExpect(status().isNoContent());
+        assertAggregate(get("/api/notes/stats"), "{\"cherry\":2,\"banana\":1}");
+        assertAggregate(get("/api/notes/stats").param("tag", "BUSINESS"), "{\"cherry\":2}");
+        assertAggregate(get("/api/notes/stats").param("from", "2000-01-01").param("to", "2000-01-07"), "{}");
+
+        mockMvc.perform(get("/api/notes/stats").param("from", "2000-01-02").param("to", "2000-01-01"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/notes/stats").param("tag", "nope"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldRecordServiceRepositoryAndMongoMetrics() throws Exception {
+        String id = createViaApi(new CreateNoteRequest("Metrics", "Timers and histograms.", List.of()));
+        mockMvc.perform(get("/api/notes/{id}", id)).andExpect(status().isOk());
+        mockMvc.perform(get("/api/notes").param("size", "25")).andExpect(status().isOk());
+
+        assertTrue(meterRegistry.get("notes.service").tag("method", "create").timer().count() >= 1);
+        assertTrue(meterRegistry.get("notes.service").tag("method", "get").timer().count() >= 1);
+        assertTrue(meterRegistry.get("spring.data.repository.invocations")
+                .tag("repository", "NoteRepository").tag("method", "save").timer().count() >= 1);
+        assertTrue(meterRegistry.get("mongodb.driver.commands")
+                .tag("collection", "notes").tag("command", "insert").timer().count() >= 1);
+        assertTrue(meterRegistry.get("notes.stats.text.length").summary().totalAmount() >= "Timers and histograms.".length());
+        assertTrue(meterRegistry.get("notes.page.size").tag("operation", "list").summary().count() >= 1);
+    }
+
+    private void assertAggregate(MockHttpServletRequestBuilder request, String expected) throws Exception {
+        mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(content().string(expected));
+    }
+
+    @Test
+    void shouldStreamNoteEventsFilteredByTagAndResumeAfterLastEventId() throws Exception {
+        MvcResult personalEvents = mockMvc.perform(get("/api/notes/events").param("tags", "personal"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult allEvents = mockMvc.perform(get("/api/notes/events"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String business = createViaApi(new CreateNoteRequest("Business", "Text", List.of("business")));
+        String personal = createViaApi(new CreateNoteRequest("Personal", "Text", List.of("personal")));
+        mockMvc.perform(delete("/api/notes/{id}", personal)).andExpect(status().isNoContent());
+
+        String filtered = awaitEvent(personalEvents, "\"type\":\"deleted\",\"id\":\"" + personal);
+        assertTrue(filtered.contains("event:created\ndata:{\"eventId\""));
+        assertTrue(filtered.contains("\"id\":\"" + personal + "\",\"version\":0,\"tags\":[\"PERSONAL\"]"));
+        assertFalse(filtered.contains(business));
+
+        String all = awaitEvent(allEvents, "\"type\":\"deleted\",\"id\":\"" + personal);
+        String businessCreated = all.substring(0, all.indexOf(business));
+        String lastEventId = businessCreated.substring(businessCreated.lastIndexOf("id:") + 3,
+                businessCreated.indexOf('\n', businessCreated.lastIndexOf("id:")));
+        MvcResult resumed = mockMvc.perform(get("/api/notes/events").header("Last-Event-ID", lastEventId))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String replayed = awaitEvent(resumed, "\"type\":\"deleted\",\"id\":\"" + personal);
+        assertFalse(replayed.contains(business));
+        assertTrue(replayed.contains("\"type\":\"created\",\"id\":\"" + personal));
+
+        MvcResult reset = mockMvc.perform(get("/api/notes/events").param("lastEventId", "unknown"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        awaitEvent(reset, "event:reset");
+    }
+
+    private static String awaitEvent(MvcResult result, String expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 10_000;
+        String content = result.getResponse().getContentAsString();
+        while (!content.contains(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+            content = result.getResponse().getContentAsString();
+        }
+        assertTrue(content.contains(expected), content);
+        return content;
+    }
+
+    private String createViaApi(CreateNoteRequest request) throws Exception {
+        MvcResult result = mockMvc.perform(post("/api/notes")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andReturn();
+        return objectMapper.readTree(result.getResponse().getContentAsString()).get("id").asText();
+    }
+
+    @Test
+    void shouldCreateNotesInBatchWithPerItemResults() throws Exception {
+        List<CreateNoteRequest> request = List.of(
+                new CreateNoteRequest("First", "Text one", List.of("business")),
+                new CreateNoteRequest("Bad tag", "Text", List.of("unknown")),
+                new CreateNoteRequest(null, "Text", List.of()),
+                new CreateNoteRequest("Second", "Text two", List.of()));
+
+        mockMvc.perform(post("/api/notes/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.succeeded").value(2))
+                .andExpect(jsonPath("$.failed").value(2))
+                .andExpect(jsonPath("$.items[0].status").value(200))
+                .andExpect(jsonPath("$.items[0].id").exists())
+                .andExpect(jsonPath("$.items[1].status").value(400))
+                .andExpect(jsonPath("$.items[1].error").value(containsString("UNKNOWN")))
+                .andExpect(jsonPath("$.items[2].status").value(400))
+                .andExpect(jsonPath("$.items[2].error").value("title: must not be blank"))
+                .andExpect(jsonPath("$.items[3].status").value(200));
+
+        assertEquals(2, noteRepository.count());
+    }
+
+    @Test
+    void shouldUpdateAndDeleteNotesInBatch() throws Exception {
+        Note first = createTestNote("First", "Old", List.of(Tag.BUSINESS), Instant.now());
+        Note second = createTestNote("Second", "Old", List.of(), Instant.now());
+
+        List<BatchUpdateNoteRequest> updates = List.of(
+                new BatchUpdateNoteRequest(first.getId(), "First updated", "New new text", List.of("important")),
+                new BatchUpdateNoteRequest("000000000000000000000000", "Missing", "Text", List.of()));
+
+        mockMvc.perform(put("/api/notes/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(updates)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.succeeded").value(1))
+                .andExpect(jsonPath("$.items[0].status").value(200))
+                .andExpect(jsonPath("$.items[1].status").value(404));
+
+        Note updated = noteRepository.findById(first.getId()).orElseThrow();
+        assertEquals("First updated", updated.getTitle());
+        assertEquals(List.of(Tag.IMPORTANT), updated.getTags());
+        mockMvc.perform(get("/api/notes/{id}/stats", first.getId()))
+                .andExpect(jsonPath("$.new").value(2));
+        mockMvc.perform(get("/api/notes/search").param("q", "updated"))
+                .andExpect(jsonPath("$.totalElements").value(1))
+                .andExpect(jsonPath("$.content[0].id").value(first.getId()));
+
+        mockMvc.perform(post("/api/notes/batch/delete")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(first.getId(), second.getId(), "000000000000000000000000"))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.succeeded").value(2))
+                .andExpect(jsonPath("$.items[2].status").value(404));
+
+        assertEquals(0, noteRepository.count());
+    }
+
+    @Test
+    void shouldRejectBatchUpdatesOfAnOutdatedVersion() throws Exception {
+        String id = createViaApi(new CreateNoteRequest("Fruit", "Apple.", List.of("BUSINESS")));
+
+        List<BatchUpdateNoteRequest> updates = List.of(
+                new BatchUpdateNoteRequest(id, "Fruit", "Banana.", List.of("business")),
+                new BatchUpdateNoteRequest(id, "Fruit", "Cherry.", List.of("business")));
+
+        mockMvc.perform(put("/api/notes/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(updates)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.succeeded").value(1))
+                .andExpect(jsonPath("$.items[0].status").value(200))
+                .andExpect(jsonPath("$.items[1].status").value(409))
+                .andExpect(jsonPath("$.items[1].error").value("Note was modified by another request"));
+
+        Note updated = noteRepository.findById(id).orElseThrow();
+        assertEquals("Banana.", updated.getText());
+        assertEquals(1L, updated.getVersion());
+        assertAggregate(get("/api/notes/stats"), "{\"banana\":1}");
+        assertAggregate(get("/api/notes/stats").param("tag", "BUSINESS"), "{\"banana\":1}");
+    }
+
+    @Test
+    void shouldExportNotesAsNdjson() throws Exception {
+        Instant now = Instant.now();
+        createTestNote("Business", "Text one", List.of(Tag.BUSINESS), now.minusSeconds(2));
+        createTestNote("Personal", "Text two", List.of(Tag.PERSONAL), now.minusSeconds(1));
+
+        MvcResult all = mockMvc.perform(get("/api/notes/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(all))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        for (String line : lines) {
+            assertEquals(5, objectMapper.readTree(line).size());
+        }
+
+        MvcResult filtered = mockMvc.perform(get("/api/notes/export").param("tags", "personal"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String filteredBody = mockMvc.perform(asyncDispatch(filtered))
+                .andReturn().getResponse().getContentAsString();
+        assertEquals("Personal", objectMapper.readTree(filteredBody.trim()).get("title").asText());
+        assertEquals("Text two", objectMapper.readTree(filteredBody.trim()).get("text").asText());
+
+        mockMvc.perform(get("/api/notes/export").param("tags", "nope"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldImportNdjsonAndReportRejectedLines() throws Exception {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 1200; i++) {
+            body.append(objectMapper.writeValueAsString(
+                    new CreateNoteRequest("Imported " + i, "Imported text " + i, List.of("personal")))).append('\n');
+        }
+        body.append("{not json}\n");
+        body.append('\n');
+        body.append(objectMapper.writeValueAsString(new CreateNoteRequest("Bad", "Text", List.of("nope")))).append('\n');
+        body.append(objectMapper.writeValueAsString(new CreateNoteRequest("", "Text", List.of()))).append('\n');
+        body.append(objectMapper.writeValueAsString(new CreateNoteRequest("Long", "x".repeat(70_000), List.of())));
+
+        mockMvc.perform(post("/api/notes/import")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(body.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accepted").value(1200))
+                .andExpect(jsonPath("$.rejected").value(4))
+                .andExpect(jsonPath("$.errors[0].line").value(1201))
+                .andExpect(jsonPath("$.errors[1].line").value(1203))
+                .andExpect(jsonPath("$.errors[1].error").value(containsString("NOPE")))
+                .andExpect(jsonPath("$.errors[2].line").value(1204))
+                .andExpect(jsonPath("$.errors[3].line").value(1205))
+                .andExpect(jsonPath("$.errors[3].error").value("Line exceeds 65536 characters."));
+
+        assertEquals(1200, noteRepository.count());
+    }
+}
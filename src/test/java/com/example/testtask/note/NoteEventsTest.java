@@ -0,0 +1,33 @@
+package com.example.testtask.note;
+
+import com.example.testtask.note.dto.NoteEventDto;
+import com.example.testtask.note.model.Tag;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NoteEventsTest {
+
+    @Test
+    void shouldOnlyPassDeletesWithoutTagsToTagFilteredSubscribers() {
+        NoteEvents events = new NoteEvents(new SimpleMeterRegistry(), 100, 100, 10, Duration.ofSeconds(15));
+        List<NoteEventDto> personal = new ArrayList<>();
+        List<NoteEventDto> all = new ArrayList<>();
+        events.subscribe(TagFilter.of(List.of("personal")), null).subscribe(personal::add);
+        events.subscribe(TagFilter.NONE, null).subscribe(all::add);
+
+        events.publish("1", NoteEvents.UPDATED, "a", 1L, List.of(Tag.BUSINESS), Instant.now());
+        events.publish("2", NoteEvents.UPDATED, "b", 1L, List.of(Tag.PERSONAL), Instant.now());
+        events.publish("3", NoteEvents.UPDATED, "c", null, null, Instant.now());
+        events.publish("4", NoteEvents.DELETED, "c", null, null, Instant.now());
+
+        assertEquals(List.of("2", "4"), personal.stream().map(NoteEventDto::eventId).toList());
+        assertEquals(List.of("1", "2", "3", "4"), all.stream().map(NoteEventDto::eventId).toList());
+    }
+}
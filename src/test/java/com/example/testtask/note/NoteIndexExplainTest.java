@@ -0,0 +1,118 @@
+package com.example.testtask.note;
+
+import com.example.testtask.note.dto.NoteListItemDto;
+import com.example.testtask.note.model.Note;
+import com.example.testtask.note.model.Tag;
+import com.mongodb.client.FindIterable;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+@SpringBootTest
+@Testcontainers
+class NoteIndexExplainTest {
+
+    @Container
+    static MongoDBContainer mongoDBContainer = new MongoDBContainer("mongo:6.0");
+
+    @DynamicPropertySource
+    static void setMongoUri(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.mongodb.uri", mongoDBContainer::getReplicaSetUrl);
+    }
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @BeforeEach
+    void seed() {
+        noteRepository.deleteAll();
+        Tag[] tags = Tag.values();
+        Instant now = Instant.now();
+        List<Note> notes = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            notes.add(Note.builder()
+                    .title("Note " + i)
+                    .createdDate(now.minusSeconds(i / 2))
+                    .text("Text " + i)
+                    .tags(i % 4 == 3 ? List.of() : List.of(tags[i % tags.length]))
+                    .build());
+        }
+        noteRepository.saveAll(notes);
+    }
+
+    @Test
+    void pagedListShouldUseIndex() {
+        assertIndexed(new Query().with(PageRequest.of(3, 20, Sort.by("createdDate").descending())));
+    }
+
+    @Test
+    void pagedListByTagsShouldUseIndex() {
+        PageRequest pageable = PageRequest.of(1, 20, Sort.by("createdDate").descending());
+        assertIndexed(Query.query(TagFilter.of(List.of("business")).criteria()).with(pageable));
+        assertIndexed(Query.query(TagFilter.of(List.of("business", "important")).criteria()).with(pageable));
+        assertIndexed(Query.query(TagFilter.of(List.of("business", "important"), "all").criteria()).with(pageable));
+    }
+
+    @Test
+    void keysetListShouldUseIndex() {
+        NoteListItemDto middle = noteRepository.findListItemsBy(PageRequest.of(7, 20, Sort.by("createdDate").descending()))
+                .getContent().get(0);
+        NoteCursor cursor = NoteCursor.after(middle);
+
+        assertIndexed(NoteServiceImpl.keysetQuery(TagFilter.NONE, null, 21));
+        assertIndexed(NoteServiceImpl.keysetQuery(TagFilter.NONE, cursor, 21));
+        assertIndexed(NoteServiceImpl.keysetQuery(TagFilter.of(List.of("personal")), cursor, 21));
+        assertIndexed(NoteServiceImpl.keysetQuery(TagFilter.of(List.of("personal", "business")), cursor, 21));
+    }
+
+    private void assertIndexed(Query query) {
+        QueryMapper mapper = new QueryMapper(mongoTemplate.getConverter());
+        MongoPersistentEntity<?> entity = mongoTemplate.getConverter().getMappingContext()
+                .getRequiredPersistentEntity(Note.class);
+        Document filter = mapper.getMappedObject(query.getQueryObject(), entity);
+        Document sort = mapper.getMappedSort(query.getSortObject(), entity);
+
+        FindIterable<Document> find = mongoTemplate.getCollection("notes").find(filter).sort(sort);
+        if (query.getSkip() > 0) find.skip((int) query.getSkip());
+        if (query.isLimited()) find.limit(query.getLimit());
+        Document winningPlan = find.explain().get("queryPlanner", Document.class).get("winningPlan", Document.class);
+
+        List<String> stages = new ArrayList<>();
+        collectStages(winningPlan, stages);
+        String message = "filter " + filter.toJson() + " sort " + sort.toJson() + " used plan " + stages;
+        assertFalse(stages.contains("COLLSCAN"), message);
+        assertFalse(stages.contains("SORT"), message);
+    }
+
+    private static void collectStages(Object node, List<String> stages) {
+        if (node instanceof Document doc) {
+            Object stage = doc.get("stage");
+            if (stage instanceof String s) stages.add(s);
+            doc.values().forEach(v -> collectStages(v, stages));
+        } else if (node instanceof List<?> list) {
+            list.forEach(v -> collectStages(v, stages));
+        }
+    }
+}
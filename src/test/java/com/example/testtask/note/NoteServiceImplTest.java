@@ -1,9 +1,13 @@
 package com.example.testtask.note;
 
 import com.example.testtask.note.dto.CreateNoteRequest;
+import com.example.testtask.note.dto.NoteListItemDto;
 import com.example.testtask.note.dto.UpdateNoteRequest;
 import com.example.testtask.note.model.Note;
+import com.example.testtask.note.model.NoteStats;
 import com.example.testtask.note.model.Tag;
+import com.example.testtask.note.model.WordCount;
+import com.example.testtask.note.model.WordCounter;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -11,6 +15,9 @@ import org.springframework.boot.test.context.SpringBootTest;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
 import org.springframework.web.server.ResponseStatusException;
@@ -18,6 +25,7 @@ import org.testcontainers.containers.MongoDBContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Map;
 
@@ -37,12 +45,22 @@ class NoteServiceImplTest {
     @Autowired
     private NoteRepository repo;
 
+    @Autowired
+    private NoteStatsRepository statsRepo;
+
     @Autowired
     private NoteServiceImpl service;
 
+    @Autowired
+    private NoteCache cache;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
     @BeforeEach
     void setUp() {
         repo.deleteAll();
+        statsRepo.deleteAll();
     }
 
     @Test
@@ -112,17 +130,128 @@ class NoteServiceImplTest {
         assertEquals(Map.of("note", 2, "a", 1, "is", 1, "just", 1), stats);
     }
 
+    @Test
+    void shouldStoreStatsOnCreateAndRecomputeOnUpdate() {
+        Note note = service.create(new CreateNoteRequest("Stats", "one two two", List.of("personal")));
+
+        NoteStats stored = statsRepo.findById(note.getId()).orElseThrow();
+        assertEquals(List.of(new WordCount("two", 2), new WordCount("one", 1)), stored.getWords());
+
+        service.update(note.getId(), new UpdateNoteRequest("Stats", "three", List.of("personal")));
+
+        NoteStats updated = statsRepo.findById(note.getId()).orElseThrow();
+        assertEquals(List.of(new WordCount("three", 1)), updated.getWords());
+        assertNotEquals(stored.getTextHash(), updated.getTextHash());
+        assertEquals(Map.of("three", 1), service.stats(note.getId()));
+    }
+
+    @Test
+    void shouldBackfillStatsForNotesWrittenWithoutThem() {
+        Note legacy = repo.save(Note.builder()
+                .title("Legacy")
+                .createdDate(Instant.now())
+                .text("old old note")
+                .tags(List.of())
+                .build());
+        assertFalse(statsRepo.existsById(legacy.getId()));
+
+        assertEquals(Map.of("old", 2, "note", 1), service.stats(legacy.getId()));
+        assertTrue(statsRepo.existsById(legacy.getId()));
+    }
+
+    @Test
+    void shouldRebuildWordCountersFromNotes() {
+        service.create(new CreateNoteRequest("Rebuild", "alpha beta alpha", List.of("BUSINESS")));
+        service.create(new CreateNoteRequest("Rebuild", "beta gamma", List.of()));
+        mongoTemplate.dropCollection("word_counts");
+        mongoTemplate.createCollection(WordCountRebuild.LEGACY_BUCKETS);
+
+        new WordCountRebuild(mongoTemplate, false, 1).afterSingletonsInstantiated();
+
+        assertEquals(Map.of("alpha", 2L, "beta", 2L, "gamma", 1L), service.aggregateStats(null, null, null, 10, 1));
+        assertEquals(Map.of("alpha", 2L, "beta", 1L), service.aggregateStats("BUSINESS", null, null, 10, 1));
+        assertFalse(mongoTemplate.collectionExists("word_counts_rebuild"));
+        assertFalse(mongoTemplate.collectionExists(WordCountRebuild.LEGACY_BUCKETS));
+    }
+
+    @Test
+    void shouldKeepOneCounterPerWordForHighCardinalityText() {
+        mongoTemplate.remove(new Query(), WordCounter.class);
+        StringBuilder text = new StringBuilder("common common ");
+        for (int i = 0; i < 20000; i++) {
+            text.append("id").append(Integer.toHexString(i * 7919)).append(' ');
+        }
+        service.create(new CreateNoteRequest("Hashes", text.toString(), List.of("BUSINESS")));
+        service.create(new CreateNoteRequest("Common", "common", List.of()));
+
+        assertEquals(20001, mongoTemplate.count(Query.query(Criteria.where("tag").is(WordCountBuckets.ALL)), WordCounter.class));
+        assertEquals(20001, mongoTemplate.count(Query.query(Criteria.where("tag").is("BUSINESS")), WordCounter.class));
+        assertEquals(Map.of("common", 3L), service.aggregateStats(null, null, null, 1, 1));
+        assertEquals(Map.of("common", 3L), service.aggregateStats(null, null, null, 0, 2));
+        assertEquals(20001, service.aggregateStats("BUSINESS", null, null, 0, 1).size());
+    }
+
+    @Test
+    void shouldRemoveStatsOnDelete() {
+        Note note = service.create(new CreateNoteRequest("Delete", "Body", List.of()));
+
+        service.delete(note.getId());
+
+        assertFalse(statsRepo.existsById(note.getId()));
+    }
+
+    @Test
+    void shouldKeepCacheInSyncWithWrites() {
+        Note note = service.create(new CreateNoteRequest("Cached", "Body", List.of("business")));
+        assertEquals("Cached", cache.get(note.getId(), id -> null).getTitle());
+
+        service.update(note.getId(), new UpdateNoteRequest("Changed", "Body", List.of("business")));
+        assertNull(cache.getIfPresent(note.getId()));
+        assertEquals("Changed", service.get(note.getId()).getTitle());
+        assertEquals("Changed", cache.getIfPresent(note.getId()).getTitle());
+
+        service.delete(note.getId());
+        assertNull(cache.get(note.getId(), id -> null));
+        assertThrows(ResponseStatusException.class, () -> service.get(note.getId()));
+    }
+
+    @Test
+    void shouldNotCacheLoadsThatRaceWritesOrDeletes() {
+        Note note = service.create(new CreateNoteRequest("Cached", "Body", List.of()));
+        cache.evict(note.getId());
+
+        long stamp = cache.stamp(note.getId());
+        Note stale = repo.findById(note.getId()).orElseThrow();
+        service.delete(note.getId());
+        cache.fill(stale, stamp);
+        assertNull(cache.getIfPresent(note.getId()));
+
+        Note newer = stale.toBuilder().title("Newer").version(stale.getVersion() + 1).build();
+        cache.put(newer);
+        cache.fill(stale, cache.stamp(note.getId()));
+        assertEquals("Newer", cache.getIfPresent(note.getId()).getTitle());
+    }
+
     @Test
     void shouldListNotesAndFilterByTags() {
         service.create(new CreateNoteRequest("One", "Body", List.of("business")));
         service.create(new CreateNoteRequest("Two", "Body", List.of("personal")));
         service.create(new CreateNoteRequest("Three", "Body", List.of("important")));
 
-        Page<Note> all = service.list(null, PageRequest.of(0, 10));
+        Page<NoteListItemDto> all = service.list(TagFilter.NONE, PageRequest.of(0, 10));
         assertEquals(3, all.getTotalElements());
 
-        Page<Note> personal = service.list(List.of("personal"), PageRequest.of(0, 10));
+        Page<NoteListItemDto> personal = service.list(TagFilter.of(List.of("personal")), PageRequest.of(0, 10));
         assertEquals(1, personal.getTotalElements());
-        assertEquals("Two", personal.getContent().get(0).getTitle());
+        assertEquals("Two", personal.getContent().get(0).title());
+
+        service.create(new CreateNoteRequest("Four", "Body", List.of("Important", "business", "BUSINESS")));
+        assertEquals(List.of(Tag.BUSINESS, Tag.IMPORTANT),
+                service.create(new CreateNoteRequest("Five", "Body", List.of("important", "business"))).getTags());
+        assertEquals(4, service.list(TagFilter.of(List.of("business", "important")), PageRequest.of(0, 10))
+                .getTotalElements());
+        assertEquals(2, service.list(TagFilter.of(List.of("business", "important"), "all"), PageRequest.of(0, 10))
+                .getTotalElements());
+        assertThrows(ResponseStatusException.class, () -> TagFilter.of(List.of("business"), "some"));
     }
 }
\ No newline at end of file
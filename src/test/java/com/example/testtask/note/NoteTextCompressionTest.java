@@ -0,0 +1,165 @@
+package com.example.testtask.note;
+
+import com.example.testtask.note.dto.BatchUpdateNoteRequest;
+import com.example.testtask.note.dto.CreateNoteRequest;
+import com.example.testtask.note.model.NoteSearchEntry;
+import com.example.testtask.note.model.WordCounter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.bson.Document;
+import org.bson.types.Binary;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+import static com.mongodb.client.model.Filters.eq;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {
+        "notes.text.compression.enabled=true",
+        "notes.text.compression.threshold=64"
+})
+@Testcontainers
+@AutoConfigureMockMvc
+class NoteTextCompressionTest {
+    private static final String LONG_TEXT = "Compressible text. ".repeat(100);
+
+    @Container
+    static MongoDBContainer mongoDBContainer = new MongoDBContainer("mongo:6.0");
+
+    @DynamicPropertySource
+    static void setMongoUri(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.mongodb.uri", mongoDBContainer::getReplicaSetUrl);
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private NoteTextCodec codec;
+
+    @BeforeEach
+    @AfterEach
+    void cleanUp() {
+        noteRepository.deleteAll();
+        mongoTemplate.remove(new Query(), NoteSearchEntry.class);
+        mongoTemplate.remove(new Query(), WordCounter.class);
+    }
+
+    @Test
+    void shouldStoreLongTextsCompressedAndReadThemBack() throws Exception {
+        String longId = createViaApi(new CreateNoteRequest("Long", LONG_TEXT, List.of("BUSINESS")));
+        String shortId = createViaApi(new CreateNoteRequest("Short", "Short text.", List.of()));
+
+        Binary stored = assertInstanceOf(Binary.class, rawText(longId));
+        assertTrue(stored.length() < LONG_TEXT.length() / 10);
+        assertEquals("Short text.", rawText(shortId));
+
+        assertEquals(LONG_TEXT, noteRepository.findById(longId).orElseThrow().getText());
+        mockMvc.perform(get("/api/notes/{id}/stats", longId))
+                .andExpect(status().isOk())
+                .andExpect(content().string("{\"compressible\":100,\"text\":100}"));
+        mockMvc.perform(get("/api/notes"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(2))
+                .andExpect(jsonPath("$.content[0].text").doesNotExist());
+
+        MvcResult export = mockMvc.perform(get("/api/notes/export").param("tags", "business"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(export))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals(LONG_TEXT, objectMapper.readTree(body.trim()).get("text").asText());
+    }
+
+    @Test
+    void shouldCompressTextsWrittenByBatchUpdates() throws Exception {
+        String id = createViaApi(new CreateNoteRequest("Short", "Short text.", List.of()));
+
+        mockMvc.perform(put("/api/notes/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(
+                                new BatchUpdateNoteRequest(id, "Long", LONG_TEXT, List.of())))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.succeeded").value(1));
+
+        assertInstanceOf(Binary.class, rawText(id));
+        assertEquals(LONG_TEXT, noteRepository.findById(id).orElseThrow().getText());
+    }
+
+    @Test
+    void shouldMigrateExistingDocumentsInBothDirections() {
+        ObjectId id = new ObjectId();
+        mongoTemplate.getCollection("notes").insertOne(new Document("_id", id)
+                .append("title", "Legacy")
+                .append("createdDate", new Date())
+                .append("text", LONG_TEXT)
+                .append("tags", List.of()));
+
+        assertEquals(1, new NoteTextMigration(mongoTemplate, codec, true, 2).migrate());
+        assertInstanceOf(Binary.class, rawText(id.toHexString()));
+        assertEquals(LONG_TEXT, noteRepository.findById(id.toHexString()).orElseThrow().getText());
+        assertEquals(0, new NoteTextMigration(mongoTemplate, codec, true, 2).migrate());
+
+        NoteTextCodec disabled = new NoteTextCodec(false, 64, 1);
+        assertEquals(1, new NoteTextMigration(mongoTemplate, disabled, false, 2).migrate());
+        assertEquals(LONG_TEXT, rawText(id.toHexString()));
+    }
+
+    @Test
+    void shouldRoundTripTextsAndKeepShortOnesPlain() {
+        String unicode = "Οδυσσεύς 日本語 𐐀𐐨 emoji 😀 ".repeat(20);
+        assertInstanceOf(Binary.class, codec.encode(unicode));
+        assertEquals(unicode, NoteTextCodec.decode(codec.encode(unicode)));
+
+        StringBuilder random = new StringBuilder();
+        Random rnd = new Random(3);
+        for (int i = 0; i < 5000; i++) random.appendCodePoint(0x4E00 + rnd.nextInt(20000));
+        assertEquals(random.toString(), NoteTextCodec.decode(codec.encode(random.toString())));
+
+        assertEquals("x".repeat(63), codec.encode("x".repeat(63)));
+        assertNull(codec.encode(null));
+    }
+
+    private Object rawText(String id) {
+        return mongoTemplate.getCollection("notes").find(eq("_id", new ObjectId(id))).first().get("text");
+    }
+
+    private String createViaApi(CreateNoteRequest request) throws Exception {
+        MvcResult result = mockMvc.perform(post("/api/notes")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andReturn();
+        return objectMapper.readTree(result.getResponse().getContentAsString()).get("id").asText();
+    }
+}
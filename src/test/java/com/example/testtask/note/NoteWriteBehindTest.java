@@ -0,0 +1,218 @@
+package com.example.testtask.note;
+
+import com.example.testtask.note.dto.CreateNoteRequest;
+import com.example.testtask.note.dto.UpdateNoteRequest;
+import com.example.testtask.note.model.Note;
+import com.example.testtask.note.model.NoteSearchEntry;
+import com.example.testtask.note.model.TagCount;
+import com.example.testtask.note.model.WordCounter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.springframework.web.server.ResponseStatusException;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Testcontainers
+@SpringBootTest(properties = {
+        "notes.create.write-behind.enabled=true",
+        "notes.create.write-behind.batch-size=50",
+        "notes.create.write-behind.max-delay=200ms"
+})
+class NoteWriteBehindTest {
+
+    @Container
+    static final MongoDBContainer mongo = new MongoDBContainer("mongo:7.0.5");
+
+    @DynamicPropertySource
+    static void mongoProps(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.mongodb.uri", mongo::getReplicaSetUrl);
+    }
+
+    @Autowired
+    private NoteServiceImpl service;
+
+    @Autowired
+    private NoteWriteBehind writeBehind;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private NoteBatchServiceImpl batchService;
+
+    @Autowired
+    private NoteCache cache;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate.remove(new Query(), Note.class);
+        mongoTemplate.remove(new Query(), NoteSearchEntry.class);
+        mongoTemplate.remove(new Query(), WordCounter.class);
+        mongoTemplate.remove(new Query(), TagCount.class);
+    }
+
+    @Test
+    void shouldServePendingNotesAndWriteThemInBatches() {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            Note note = service.create(new CreateNoteRequest("Note " + i, "Burst text", List.of("business")));
+            assertEquals(0L, note.getVersion());
+            ids.add(note.getId());
+        }
+
+        assertEquals("Note 7", service.get(ids.get(7)).getTitle());
+        assertEquals(0L, service.version(ids.get(7)).version());
+        ids.forEach(writeBehind::awaitWritten);
+
+        assertEquals(120, mongoTemplate.count(new Query(), Note.class));
+        assertEquals(120L, service.tagCounts().get("BUSINESS"));
+        assertEquals(120, service.search("burst", TagFilter.NONE, PageRequest.of(0, 5))
+                .getTotalElements());
+        assertNull(writeBehind.pending(ids.get(0)));
+    }
+
+    @Test
+    void shouldUpdateAndDeleteNotesThatAreStillPending() {
+        Note first = service.create(new CreateNoteRequest("First", "Text", List.of()));
+        Note updated = service.update(first.getId(), new UpdateNoteRequest("Renamed", "Text", List.of()), 0L);
+        assertEquals(1L, updated.getVersion());
+        assertEquals("Renamed", service.get(first.getId()).getTitle());
+
+        Note second = service.create(new CreateNoteRequest("Second", "Text", List.of()));
+        service.delete(second.getId());
+        assertEquals(1, mongoTemplate.count(new Query(), Note.class));
+    }
+
+    @Test
+    void shouldRejectCreatesWhileTheQueueIsFull() throws Exception {
+        CountDownLatch flushing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        NoteWriteBehind blocked = blockedWriteBehind(flushing, release, false);
+        try {
+            Note first = blocked.submit(note("First"));
+            assertTrue(flushing.await(10, TimeUnit.SECONDS));
+            Note second = blocked.submit(note("Second"));
+            Note rejected = note("Rejected");
+            ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> blocked.submit(rejected));
+            assertEquals(HttpStatus.TOO_MANY_REQUESTS, e.getStatusCode());
+            assertNull(blocked.pending(rejected.getId()));
+
+            release.countDown();
+            blocked.awaitWritten(first.getId());
+            blocked.awaitWritten(second.getId());
+            assertEquals(List.of("First", "Second"), storedTitles());
+        } finally {
+            release.countDown();
+            blocked.stop();
+        }
+    }
+
+    @Test
+    void shouldWithdrawQueuedNotesWhoseAckTimesOut() throws Exception {
+        CountDownLatch flushing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        NoteWriteBehind blocked = blockedWriteBehind(flushing, release, true);
+        try {
+            CompletableFuture<Note> inFlight = CompletableFuture.supplyAsync(() -> blocked.submit(note("In flight")));
+            assertTrue(flushing.await(10, TimeUnit.SECONDS));
+            Note queued = note("Queued");
+            ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> blocked.submit(queued));
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE, e.getStatusCode());
+            assertNull(blocked.pending(queued.getId()));
+            assertFalse(inFlight.isDone());
+
+            release.countDown();
+            assertEquals("In flight", inFlight.get(10, TimeUnit.SECONDS).getTitle());
+            blocked.submit(note("Retried"));
+            assertEquals(List.of("In flight", "Retried"), storedTitles());
+        } finally {
+            release.countDown();
+            blocked.stop();
+        }
+    }
+
+    /**
+     * A write-behind of one-note batches whose flusher stops after writing a note, before taking the next one,
+     * until {@code release} opens.
+     */
+    private NoteWriteBehind blockedWriteBehind(CountDownLatch flushing, CountDownLatch release, boolean waitForAck) {
+        NoteCache blocking = new NoteCache() {
+            @Override
+            public Note getIfPresent(String id) {
+                return cache.getIfPresent(id);
+            }
+
+            @Override
+            public long stamp(String id) {
+                return cache.stamp(id);
+            }
+
+            @Override
+            public void fill(Note note, long stamp) {
+                cache.fill(note, stamp);
+            }
+
+            @Override
+            public void put(Note note) {
+                flushing.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                cache.put(note);
+            }
+
+            @Override
+            public void evict(String id) {
+                cache.evict(id);
+            }
+        };
+        NoteWriteBehind writeBehind = new NoteWriteBehind(batchService, blocking, new SimpleMeterRegistry(),
+                true, 1, 1, Duration.ofMillis(1), waitForAck, Duration.ofMillis(200));
+        writeBehind.start();
+        return writeBehind;
+    }
+
+    private static Note note(String title) {
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        return Note.builder()
+                .id(new ObjectId().toHexString())
+                .title(title)
+                .createdDate(now)
+                .lastModifiedDate(now)
+                .text("Text")
+                .tags(List.of())
+                .version(0L)
+                .build();
+    }
+
+    private List<String> storedTitles() {
+        return mongoTemplate.find(new Query().with(Sort.by("createdDate", "_id")), Note.class).stream()
+                .map(Note::getTitle)
+                .toList();
+    }
+}
@@ -0,0 +1,707 @@
+package com.example.testtask.note;
+
+import com.example.testtask.note.dto.BatchUpdateNoteRequest;
+import com.example.testtask.note.dto.CreateNoteRequest;
+import com.example.testtask.note.dto.NoteEventDto;
+import com.example.testtask.note.dto.UpdateNoteRequest;
+import com.example.testtask.note.model.Note;
+import com.example.testtask.note.model.NoteSearchEntry;
+import com.example.testtask.note.model.Tag;
+import com.example.testtask.note.model.TagCount;
+import com.example.testtask.note.model.WordCounter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.json.JsonCompareMode;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "spring.main.web-application-type=reactive")
+@ActiveProfiles("reactive")
+@Testcontainers
+@AutoConfigureWebTestClient
+class ReactiveNoteRoutesTest {
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Container
+    static MongoDBContainer mongoDBContainer = new MongoDBContainer("mongo:6.0");
+
+    @DynamicPropertySource
+    static void setMongoUri(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.mongodb.uri", mongoDBContainer::getReplicaSetUrl);
+    }
+
+    @BeforeEach
+    @AfterEach
+    void cleanUp() {
+        noteRepository.deleteAll();
+        mongoTemplate.remove(new Query(), NoteSearchEntry.class);
+        mongoTemplate.remove(new Query(), WordCounter.class);
+        mongoTemplate.remove(new Query(), TagCount.class);
+    }
+
+    private Note createTestNote(String title, String text, List<Tag> tags, Instant createdDate) {
+        return noteRepository.save(Note.builder()
+                .title(title)
+                .createdDate(createdDate)
+                .text(text)
+                .tags(tags)
+                .build());
+    }
+
+    @Test
+    void shouldCreateNoteSuccessfully() {
+        webTestClient.post().uri("/api/notes")
+                .bodyValue(new CreateNoteRequest("New Title", "New Text", List.of("BUSINESS", "PERSONAL")))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.title").isEqualTo("New Title")
+                .jsonPath("$.tags").value(containsInAnyOrder("BUSINESS", "PERSONAL"))
+                .jsonPath("$.id").exists();
+
+        assertEquals(1, noteRepository.count());
+    }
+
+    @Test
+    void shouldReturn400WhenTitleIsMissingOnCreate() {
+        webTestClient.post().uri("/api/notes")
+                .bodyValue(new CreateNoteRequest(null, "Text", List.of("BUSINESS")))
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void shouldGetExistingNoteById() {
+        Note note = createTestNote("Found Note", "Text", List.of(Tag.IMPORTANT), Instant.now());
+
+        webTestClient.get().uri("/api/notes/{id}", note.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.id").isEqualTo(note.getId())
+                .jsonPath("$.title").isEqualTo("Found Note")
+                .jsonPath("$.text").isEqualTo("Text")
+                .jsonPath("$.tags").value(contains("IMPORTANT"));
+    }
+
+    @Test
+    void shouldReturn404WhenNoteNotFoundOnGet() {
+        webTestClient.get().uri("/api/notes/{id}", "nonExistentId")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void shouldUpdateExistingNote() {
+        Note note = createTestNote("Old Title", "Old Text", List.of(Tag.BUSINESS), Instant.now());
+
+        webTestClient.put().uri("/api/notes/{id}", note.getId())
+                .bodyValue(new UpdateNoteRequest("Updated Title", "New Text", List.of("PERSONAL")))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.title").isEqualTo("Updated Title")
+                .jsonPath("$.tags").value(contains("PERSONAL"));
+
+        Note updatedInDb = noteRepository.findById(note.getId()).orElseThrow();
+        assertEquals("Updated Title", updatedInDb.getTitle());
+    }
+
+    @Test
+    void shouldAnswerConditionalReadsWithNotModified() {
+        String id = createViaApi(new CreateNoteRequest("Title", "Some text text", List.of()));
+
+        String lastModified = webTestClient.get().uri("/api/notes/{id}", id)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"0\"")
+                .expectHeader().exists(HttpHeaders.LAST_MODIFIED)
+                .returnResult(String.class).getResponseHeaders().getFirst(HttpHeaders.LAST_MODIFIED);
+
+        webTestClient.get().uri("/api/notes/{id}", id).header(HttpHeaders.IF_NONE_MATCH, "\"0\"")
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectBody().isEmpty();
+        webTestClient.get().uri("/api/notes/{id}", id).header(HttpHeaders.IF_MODIFIED_SINCE, lastModified)
+                .exchange()
+                .expectStatus().isNotModified();
+        webTestClient.get().uri("/api/notes/{id}/stats", id).header(HttpHeaders.IF_NONE_MATCH, "\"0\"")
+                .exchange()
+                .expectStatus().isNotModified();
+
+        webTestClient.put().uri("/api/notes/{id}", id)
+                .bodyValue(new UpdateNoteRequest("Title", "Other text", List.of()))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"1\"");
+        webTestClient.get().uri("/api/notes/{id}/stats", id).header(HttpHeaders.IF_NONE_MATCH, "\"0\"")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"1\"")
+                .expectBody().jsonPath("$.other").isEqualTo(1);
+        webTestClient.get().uri("/api/notes/{id}", "000000000000000000000000").header(HttpHeaders.IF_NONE_MATCH, "\"0\"")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void shouldRejectUpdatesOfStaleVersions() {
+        String id = createViaApi(new CreateNoteRequest("Title", "Text", List.of()));
+        UpdateNoteRequest body = new UpdateNoteRequest("Title", "New text", List.of());
+
+        webTestClient.put().uri("/api/notes/{id}", id).header(HttpHeaders.IF_MATCH, "\"0\"").bodyValue(body)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"1\"");
+        webTestClient.put().uri("/api/notes/{id}", id).header(HttpHeaders.IF_MATCH, "\"0\"").bodyValue(body)
+                .exchange()
+                .expectStatus().isEqualTo(412);
+
+        webTestClient.get().uri("/api/notes/{id}", id).exchange().expectStatus().isOk();
+        mongoTemplate.updateFirst(Query.query(Criteria.where("id").is(id)), new Update().inc("version", 1), Note.class);
+        webTestClient.put().uri("/api/notes/{id}", id).header(HttpHeaders.IF_MATCH, "\"1\"").bodyValue(body)
+                .exchange()
+                .expectStatus().isEqualTo(412);
+        webTestClient.put().uri("/api/notes/{id}", "000000000000000000000000").header(HttpHeaders.IF_MATCH, "\"1\"")
+                .bodyValue(body)
+                .exchange()
+                .expectStatus().isNotFound();
+        webTestClient.put().uri("/api/notes/{id}", id).bodyValue(body)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"3\"");
+    }
+
+    @Test
+    void shouldVersionNotesWrittenBeforeVersioning() {
+        ObjectId id = new ObjectId();
+        mongoTemplate.getCollection("notes").insertOne(new Document("_id", id)
+                .append("title", "Legacy")
+                .append("createdDate", new Date())
+                .append("text", "Legacy text")
+                .append("tags", List.of()));
+
+        webTestClient.get().uri("/api/notes/{id}", id.toHexString())
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"0\"")
+                .expectHeader().exists(HttpHeaders.LAST_MODIFIED);
+        webTestClient.put().uri("/api/notes/{id}", id.toHexString()).header(HttpHeaders.IF_MATCH, "\"0\"")
+                .bodyValue(new UpdateNoteRequest("Legacy", "Updated", List.of()))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"1\"");
+    }
+
+    @Test
+    void shouldFilterByAnyOrAllTagsAndCountNotesPerTag() {
+        createViaApi(new CreateNoteRequest("Both", "Text", List.of("important", "business")));
+        String personal = createViaApi(new CreateNoteRequest("Personal", "Text", List.of("PERSONAL")));
+        String business = createViaApi(new CreateNoteRequest("Business", "Text", List.of("Business")));
+
+        webTestClient.get().uri("/api/notes?tags=business,personal")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.totalElements").isEqualTo(3);
+        webTestClient.get().uri("/api/notes?tags=business&tags=important&tagMatch=all")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.totalElements").isEqualTo(1)
+                .jsonPath("$.content[0].title").isEqualTo("Both");
+        webTestClient.get().uri("/api/notes?tags=business&tagMatch=some")
+                .exchange()
+                .expectStatus().isBadRequest();
+        webTestClient.get().uri("/api/notes/tags/counts")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().json("{\"BUSINESS\":2,\"PERSONAL\":1,\"IMPORTANT\":1}", JsonCompareMode.STRICT);
+
+        webTestClient.put().uri("/api/notes/{id}", personal)
+                .bodyValue(new UpdateNoteRequest("Personal", "Text", List.of("IMPORTANT")))
+                .exchange()
+                .expectStatus().isOk();
+        webTestClient.delete().uri("/api/notes/{id}", business).exchange().expectStatus().isNoContent();
+        webTestClient.get().uri("/api/notes/tags/counts")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().json("{\"BUSINESS\":1,\"PERSONAL\":0,\"IMPORTANT\":2}", JsonCompareMode.STRICT);
+    }
+
+    @Test
+    void shouldDeleteNoteSuccessfully() {
+        Note note = createTestNote("Delete Me", "Text", List.of(), Instant.now());
+
+        webTestClient.delete().uri("/api/notes/{id}", note.getId())
+                .exchange()
+                .expectStatus().isNoContent();
+
+        assertEquals(0, noteRepository.count());
+    }
+
+    @Test
+    void shouldListNotesFilteredByTagAndSortedByDate() {
+        Instant now = Instant.now();
+        createTestNote("Note C", "Text", List.of(Tag.BUSINESS, Tag.IMPORTANT), now.minusSeconds(1));
+        createTestNote("Note B", "Text", List.of(Tag.PERSONAL), now.minusSeconds(2));
+        createTestNote("Note A", "Text", List.of(Tag.BUSINESS), now.minusSeconds(3));
+
+        webTestClient.get().uri("/api/notes?size=2")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.totalElements").isEqualTo(3)
+                .jsonPath("$.content.length()").isEqualTo(2)
+                .jsonPath("$.content[0].title").isEqualTo("Note C")
+                .jsonPath("$.content[1].title").isEqualTo("Note B");
+
+        webTestClient.get().uri("/api/notes?tags=BUSINESS")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.totalElements").isEqualTo(2)
+                .jsonPath("$.content.length()").isEqualTo(2)
+                .jsonPath("$.content[0].title").isEqualTo("Note C")
+                .jsonPath("$.content[1].title").isEqualTo("Note A");
+    }
+
+    @Test
+    void shouldStreamListingAsNdjson() {
+        Instant now = Instant.now();
+        createTestNote("Note B", "Text", List.of(Tag.BUSINESS), now.minusSeconds(1));
+        createTestNote("Note A", "Text", List.of(Tag.BUSINESS), now.minusSeconds(2));
+
+        String body = webTestClient.get().uri("/api/notes?size=5")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBody(String.class)
+                .returnResult().getResponseBody();
+
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("Note B", readTree(lines[0]).get("title").asText());
+        assertEquals(3, readTree(lines[1]).size());
+    }
+
+    @Test
+    void shouldReturnWordStatistics() {
+        Note note = createTestNote("Stats Note", "The word WORD is just a word.", List.of(), Instant.now());
+
+        webTestClient.get().uri("/api/notes/{id}/stats", note.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_JSON)
+                .expectBody(String.class)
+                .isEqualTo("{\"word\":3,\"a\":1,\"is\":1,\"just\":1,\"the\":1}");
+    }
+
+    @Test
+    void shouldLimitWordStatistics() {
+        Note note = createTestNote("Stats Note", "The word WORD is just a word. Just saying.", List.of(), Instant.now());
+
+        webTestClient.get().uri("/api/notes/{id}/stats?limit=3&minCount=2", note.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class)
+                .isEqualTo("{\"word\":3,\"just\":2}");
+
+        webTestClient.get().uri("/api/notes/{id}/stats?limit=-1", note.getId())
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void shouldStreamWordStatisticsAsNdjson() {
+        Note note = createTestNote("Stats Note", "The word WORD is just a word.", List.of(), Instant.now());
+
+        webTestClient.get().uri("/api/notes/{id}/stats/stream?limit=2", note.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBody(String.class)
+                .isEqualTo("{\"word\":\"word\",\"count\":3}\n{\"word\":\"a\",\"count\":1}\n");
+
+        webTestClient.get().uri("/api/notes/{id}/stats/stream", "nonExistentId")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void shouldPageThroughNotesWithCursor() {
+        Instant now = Instant.now();
+        createTestNote("Note D", "Text", List.of(Tag.BUSINESS), now.minusSeconds(1));
+        createTestNote("Note C", "Text", List.of(Tag.PERSONAL), now.minusSeconds(2));
+        createTestNote("Note B", "Text", List.of(Tag.BUSINESS), now.minusSeconds(2));
+        createTestNote("Note A", "Text", List.of(Tag.BUSINESS), now.minusSeconds(3));
+
+        JsonNode first = readTree(webTestClient.get().uri("/api/notes?cursor=&size=2")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.totalElements").doesNotExist()
+                .jsonPath("$.content.length()").isEqualTo(2)
+                .jsonPath("$.content[0].title").isEqualTo("Note D")
+                .jsonPath("$.hasNext").isEqualTo(true)
+                .returnResult().getResponseBody());
+        String cursor = first.get("nextCursor").asText();
+
+        JsonNode second = readTree(webTestClient.get().uri("/api/notes?cursor={cursor}&size=2", cursor)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.content.length()").isEqualTo(2)
+                .jsonPath("$.hasNext").isEqualTo(false)
+                .jsonPath("$.nextCursor").value(nullValue())
+                .returnResult().getResponseBody());
+
+        List<String> titles = new ArrayList<>();
+        for (JsonNode page : List.of(first, second)) {
+            page.get("content").forEach(n -> titles.add(n.get("title").asText()));
+        }
+        assertEquals(List.of("Note D", "Note B", "Note C", "Note A"), titles);
+
+        webTestClient.get().uri("/api/notes?cursor=&tags=BUSINESS&size=5")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.content.length()").isEqualTo(3)
+                .jsonPath("$.content[0].title").isEqualTo("Note D")
+                .jsonPath("$.content[2].title").isEqualTo("Note A");
+
+        webTestClient.get().uri("/api/notes?cursor=not-a-cursor")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void shouldSearchNotesByRelevance() {
+        String tuning = createViaApi(new CreateNoteRequest("Mongo tuning", "Index index index scans.", List.of("BUSINESS")));
+        String weekend = createViaApi(new CreateNoteRequest("Weekend", "Read about mongo and an index.", List.of("PERSONAL")));
+        createViaApi(new CreateNoteRequest("Groceries", "Milk and eggs.", List.of()));
+
+        webTestClient.get().uri("/api/notes/search?q=INDEX")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.totalElements").isEqualTo(2)
+                .jsonPath("$.content[0].id").isEqualTo(tuning)
+                .jsonPath("$.content[1].id").isEqualTo(weekend)
+                .jsonPath("$.content[0].score").value(greaterThan(0.0));
+
+        webTestClient.get().uri("/api/notes/search?q=mongo index&tags=personal")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.totalElements").isEqualTo(1)
+                .jsonPath("$.content[0].title").isEqualTo("Weekend")
+                .jsonPath("$.content[0].tags").value(contains("PERSONAL"));
+
+        webTestClient.get().uri("/api/notes/search?q=milk index")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.totalElements").isEqualTo(0);
+
+        webTestClient.put().uri("/api/notes/{id}", weekend)
+                .bodyValue(new UpdateNoteRequest("Weekend", "Milk.", List.of()))
+                .exchange()
+                .expectStatus().isOk();
+        webTestClient.delete().uri("/api/notes/{id}", tuning)
+                .exchange()
+                .expectStatus().isNoContent();
+
+        webTestClient.get().uri("/api/notes/search?q=index")
+                .exchange()
+                .expectBody()
+                .jsonPath("$.totalElements").isEqualTo(0);
+        webTestClient.get().uri("/api/notes/search?q=milk")
+                .exchange()
+                .expectBody()
+                .jsonPath("$.totalElements").isEqualTo(2);
+
+        webTestClient.get().uri("/api/notes/search?q=?!")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void shouldAggregateWordFrequenciesIncrementally() {
+        String first = createViaApi(new CreateNoteRequest("First", "Apple apple banana.", List.of("BUSINESS")));
+        String second = createViaApi(new CreateNoteRequest("Second", "Apple cherry.", List.of("PERSONAL")));
+
+        assertAggregate("/api/notes/stats", "{\"apple\":3,\"banana\":1,\"cherry\":1}");
+        assertAggregate("/api/notes/stats?tag=business", "{\"apple\":2,\"banana\":1}");
+        assertAggregate("/api/notes/stats?limit=1", "{\"apple\":3}");
+
+        webTestClient.put().uri("/api/notes/{id}", first)
+                .bodyValue(new UpdateNoteRequest("First", "Banana.", List.of("PERSONAL")))
+                .exchange()
+                .expectStatus().isOk();
+        assertAggregate("/api/notes/stats", "{\"apple\":1,\"banana\":1,\"cherry\":1}");
+        assertAggregate("/api/notes/stats?tag=BUSINESS", "{}");
+        assertAggregate("/api/notes/stats?tag=PERSONAL", "{\"apple\":1,\"banana\":1,\"cherry\":1}");
+
+        webTestClient.post().uri("/api/notes/batch")
+                .bodyValue(List.of(new CreateNoteRequest("Third", "Cherry cherry.", List.of("BUSINESS"))))
+                .exchange()
+                .expectStatus().isOk();
+        webTestClient.delete().uri("/api/notes/{id}", second)
+                .exchange()
+                .expectStatus().isNoContent();
+        assertAggregate("/api/notes/stats", "{\"cherry\":2,\"banana\":1}");
+        assertAggregate("/api/notes/stats?tag=BUSINESS", "{\"cherry\":2}");
+        assertAggregate("/api/notes/stats?from=2000-01-01&to=2000-01-07", "{}");
+
+        webTestClient.get().uri("/api/notes/stats?from=2000-01-02&to=2000-01-01")
+                .exchange()
+                .expectStatus().isBadRequest();
+        webTestClient.get().uri("/api/notes/stats?tag=nope")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    private void assertAggregate(String uri, String expected) {
+        webTestClient.get().uri(uri)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class)
+                .isEqualTo(expected);
+    }
+
+    @Test
+    void shouldStreamNoteEventsFilteredByTag() throws Exception {
+        CompletableFuture<List<ServerSentEvent<NoteEventDto>>> events = CompletableFuture.supplyAsync(() ->
+                webTestClient.get().uri("/api/notes/events?tags=personal")
+                        .accept(MediaType.TEXT_EVENT_STREAM)
+                        .exchange()
+                        .expectStatus().isOk()
+                        .returnResult(new ParameterizedTypeReference<ServerSentEvent<NoteEventDto>>() {})
+                        .getResponseBody()
+                        .takeUntil(event -> NoteEvents.DELETED.equals(event.event()))
+                        .collectList()
+                        .block(Duration.ofSeconds(10)));
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (meterRegistry.get("notes.events.subscribers").gauge().value() < 1
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+
+        String business = createViaApi(new CreateNoteRequest("Business", "Text", List.of("business")));
+        String personal = createViaApi(new CreateNoteRequest("Personal", "Text", List.of("personal")));
+        webTestClient.delete().uri("/api/notes/{id}", personal)
+                .exchange()
+                .expectStatus().isNoContent();
+
+        List<ServerSentEvent<NoteEventDto>> received = events.get(10, TimeUnit.SECONDS).stream()
+                .filter(event -> event.data() != null)
+                .toList();
+        assertEquals(List.of(NoteEvents.CREATED, NoteEvents.DELETED),
+                received.stream().map(ServerSentEvent::event).toList());
+        assertEquals(List.of(personal, personal), received.stream().map(event -> event.data().id()).toList());
+        assertEquals(List.of("PERSONAL"), received.get(0).data().tags());
+        assertEquals(received.get(0).data().eventId(), received.get(0).id());
+        assertTrue(received.stream().noneMatch(event -> business.equals(event.data().id())));
+    }
+
+    private String createViaApi(CreateNoteRequest request) {
+        return readTree(webTestClient.post().uri("/api/notes")
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .returnResult().getResponseBody()).get("id").asText();
+    }
+
+    @Test
+    void shouldCreateNotesInBatchWithPerItemResults() {
+        List<CreateNoteRequest> request = List.of(
+                new CreateNoteRequest("First", "Text one", List.of("business")),
+                new CreateNoteRequest("Bad tag", "Text", List.of("unknown")),
+                new CreateNoteRequest(null, "Text", List.of()),
+                new CreateNoteRequest("Second", "Text two", List.of()));
+
+        webTestClient.post().uri("/api/notes/batch")
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.succeeded").isEqualTo(2)
+                .jsonPath("$.failed").isEqualTo(2)
+                .jsonPath("$.items[0].status").isEqualTo(200)
+                .jsonPath("$.items[0].id").exists()
+                .jsonPath("$.items[1].status").isEqualTo(400)
+                .jsonPath("$.items[1].error").value(containsString("UNKNOWN"))
+                .jsonPath("$.items[2].status").isEqualTo(400)
+                .jsonPath("$.items[2].error").isEqualTo("title: must not be blank")
+                .jsonPath("$.items[3].status").isEqualTo(200);
+
+        assertEquals(2, noteRepository.count());
+    }
+
+    @Test
+    void shouldUpdateAndDeleteNotesInBatch() {
+        Note first = createTestNote("First", "Old", List.of(Tag.BUSINESS), Instant.now());
+        Note second = createTestNote("Second", "Old", List.of(), Instant.now());
+
+        List<BatchUpdateNoteRequest> updates = List.of(
+                new BatchUpdateNoteRequest(first.getId(), "First updated", "New new text", List.of("important")),
+                new BatchUpdateNoteRequest("000000000000000000000000", "Missing", "Text", List.of()));
+
+        webTestClient.put().uri("/api/notes/batch")
+                .bodyValue(updates)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.succeeded").isEqualTo(1)
+                .jsonPath("$.items[0].status").isEqualTo(200)
+                .jsonPath("$.items[1].status").isEqualTo(404);
+
+        Note updated = noteRepository.findById(first.getId()).orElseThrow();
+        assertEquals("First updated", updated.getTitle());
+        assertEquals(List.of(Tag.IMPORTANT), updated.getTags());
+        webTestClient.get().uri("/api/notes/{id}/stats", first.getId())
+                .exchange()
+                .expectBody()
+                .jsonPath("$.new").isEqualTo(2);
+        webTestClient.get().uri("/api/notes/search?q=updated")
+                .exchange()
+                .expectBody()
+                .jsonPath("$.totalElements").isEqualTo(1)
+                .jsonPath("$.content[0].id").isEqualTo(first.getId());
+
+        webTestClient.post().uri("/api/notes/batch/delete")
+                .bodyValue(List.of(first.getId(), second.getId(), "000000000000000000000000"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.succeeded").isEqualTo(2)
+                .jsonPath("$.items[2].status").isEqualTo(404);
+
+        assertEquals(0, noteRepository.count());
+    }
+
+    @Test
+    void shouldExportNotesAsNdjson() {
+        Instant now = Instant.now();
+        createTestNote("Business", "Text one", List.of(Tag.BUSINESS), now.minusSeconds(2));
+        createTestNote("Personal", "Text two", List.of(Tag.PERSONAL), now.minusSeconds(1));
+
+        String body = webTestClient.get().uri("/api/notes/export")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBody(String.class)
+                .returnResult().getResponseBody();
+
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        for (String line : lines) {
+            assertEquals(5, readTree(line).size());
+        }
+
+        String filteredBody = webTestClient.get().uri("/api/notes/export?tags=personal")
+                .exchange()
+                .expectBody(String.class)
+                .returnResult().getResponseBody();
+        assertEquals("Personal", readTree(filteredBody.trim()).get("title").asText());
+        assertEquals("Text two", readTree(filteredBody.trim()).get("text").asText());
+
+        webTestClient.get().uri("/api/notes/export?tags=nope")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void shouldImportNdjsonAndReportRejectedLines() throws Exception {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 1200; i++) {
+            body.append(objectMapper.writeValueAsString(
+                    new CreateNoteRequest("Imported " + i, "Imported text " + i, List.of("personal")))).append('\n');
+        }
+        body.append("{not json}\n");
+        body.append('\n');
+        body.append(objectMapper.writeValueAsString(new CreateNoteRequest("Bad", "Text", List.of("nope")))).append('\n');
+        body.append(objectMapper.writeValueAsString(new CreateNoteRequest("", "Text", List.of())));
+
+        webTestClient.post().uri("/api/notes/import")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .bodyValue(body.toString())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.accepted").isEqualTo(1200)
+                .jsonPath("$.rejected").isEqualTo(3)
+                .jsonPath("$.errors[0].line").isEqualTo(1201)
+                .jsonPath("$.errors[1].line").isEqualTo(1203)
+                .jsonPath("$.errors[1].error").value(containsString("NOPE"))
+                .jsonPath("$.errors[2].line").isEqualTo(1204);
+
+        assertEquals(1200, noteRepository.count());
+    }
+
+    private JsonNode readTree(byte[] json) {
+        try {
+            return objectMapper.readTree(json);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private JsonNode readTree(String json) {
+        try {
+            return objectMapper.readTree(json);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -2,12 +2,30 @@ package com.example.testtask.note;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Random;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 class TextStatisticsUtilTest {
+    private static final Pattern WORD = Pattern.compile("\\p{L}+[\\p{L}\\p{N}'\\-_]*");
+
+    private static Map<String, Integer> regexWordFrequencies(String text) {
+        Map<String, Integer> counts = WORD.matcher(text).results()
+                .map(mr -> mr.group().toLowerCase())
+                .collect(Collectors.toMap(w -> w, w -> 1, Integer::sum));
+        return counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .collect(Collectors.toMap(
+                        Map.Entry::getKey, Map.Entry::getValue,
+                        (a, b) -> a, LinkedHashMap::new));
+    }
+
     @Test
     void shouldHandleEmptyAndNullText() {
         assertTrue(TextStatisticsUtil.wordFrequencies(null).isEmpty());
@@ -73,4 +91,92 @@ class TextStatisticsUtilTest {
         assertEquals(1, actual.get("first_word-second_word"));
     }
 
-}
\ No newline at end of file
+    @Test
+    void shouldMatchRegexTokenizationOnUnicodeEdgeCases() {
+        String text = "ΟΔΥΣΣΕΥΣ Οδυσσεύς İstanbul ISTANBUL Straße STRASSE 𐐀𐐨𐐩 𐐀 "
+                + "word٣٤ ٣٤word Ⅻroman romanⅫ it's -dash_ __x x-- \uD800lone \uDC00lone 日本語テキスト";
+
+        assertEquals(regexWordFrequencies(text).toString(), TextStatisticsUtil.wordFrequencies(text).toString());
+    }
+
+    @Test
+    void shouldMatchRegexTokenizationOnRandomText() {
+        String alphabet = "aAbBzZ019 ,.;'-_!ÄäßΣσςİıЖж日٣Ⅻ\n\t";
+        Random random = new Random(42);
+        for (int round = 0; round < 200; round++) {
+            StringBuilder sb = new StringBuilder();
+            int length = random.nextInt(400);
+            for (int i = 0; i < length; i++) {
+                if (random.nextInt(50) == 0) {
+                    sb.appendCodePoint(0x10400 + random.nextInt(80));
+                } else {
+                    sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+                }
+            }
+            String text = sb.toString();
+            if (text.isBlank()) continue;
+
+            assertEquals(regexWordFrequencies(text).toString(), TextStatisticsUtil.wordFrequencies(text).toString(), text);
+        }
+    }
+
+    @Test
+    void shouldCountManyDistinctWords() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            sb.append("w").append(Integer.toString(i, 36)).append(i % 3 == 0 ? " W" + Integer.toString(i, 36) : "").append(' ');
+        }
+        String text = sb.toString();
+
+        assertEquals(regexWordFrequencies(text), TextStatisticsUtil.wordFrequencies(text));
+    }
+
+    @Test
+    void shouldOnlySplitTextBetweenWords() {
+        String text = "well-known don't snake_case x--y 'quoted' -dash- 𐐀𐐨𐐩 𐐀-𐐨 ΟΔΥΣΣΕΥΣ İstanbul word٣٤ Ⅻroman "
+                + "\uD800lone \uDC00lone 日本語 a'b'c a-b-c __x x__ 😀x x😀";
+        Map<String, Integer> whole = regexWordFrequencies(text);
+        for (int i = 0; i <= text.length(); i++) {
+            int split = WordFrequencyTable.wordBoundary(text, i, text.length());
+            assertTrue(split >= i);
+            Map<String, Integer> parts = new LinkedHashMap<>(regexWordFrequencies(text.substring(0, split)));
+            regexWordFrequencies(text.substring(split)).forEach((word, count) -> parts.merge(word, count, Integer::sum));
+            assertEquals(whole, parts, "split at " + split);
+        }
+    }
+
+    @Test
+    void shouldCountInParallelExactlyLikeSequentially() {
+        String alphabet = "aAbZ09 ,.'-_ÄßΣσİıЖ日٣Ⅻ\n";
+        Random random = new Random(7);
+        for (int round = 0; round < 50; round++) {
+            StringBuilder sb = new StringBuilder();
+            int length = 1 + random.nextInt(2000);
+            for (int i = 0; i < length; i++) {
+                if (random.nextInt(20) == 0) {
+                    sb.appendCodePoint(0x10400 + random.nextInt(80));
+                } else {
+                    sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+                }
+            }
+            String text = sb.toString();
+            String sequential = WordFrequencyTable.count(text, Integer.MAX_VALUE, 1).toWordCounts().toString();
+            for (int chunkSize : new int[]{1, 2, 3, 7, 64}) {
+                assertEquals(sequential, WordFrequencyTable.count(text, 0, chunkSize).toWordCounts().toString(), text);
+            }
+        }
+    }
+
+    @Test
+    void shouldCountLargeTextsInParallel() {
+        StringBuilder sb = new StringBuilder();
+        Random random = new Random(1);
+        while (sb.length() < WordFrequencyTable.PARALLEL_THRESHOLD * 2) {
+            sb.append("w").append(Integer.toString(random.nextInt(20000), 36))
+                    .append(random.nextInt(10) == 0 ? "-ß's 𐐨" : " ");
+        }
+        String text = sb.toString();
+
+        assertEquals(regexWordFrequencies(text).toString(), TextStatisticsUtil.wordFrequencies(text).toString());
+    }
+}